@@ -0,0 +1,127 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberProjection;
+import study.datajpa.repository.MemberSpec;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 리포지토리 주요 조회 경로 벤치마크
+ * <p>
+ * 전체 조회(findMemberDto, fetch join, entity graph)는 rows 건을 모두 읽으므로 rows 에 비례한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * offset 과 키셋이 같은 위치(전체의 절반)를 id 순으로 읽도록 맞춘다. 둘 다 count 쿼리 없이 PAGE_SIZE + 1 건을 읽는다.
+     */
+    @State(Scope.Benchmark)
+    public static class Paging {
+        Pageable middle;
+        long afterId;
+
+        @Setup(Level.Trial)
+        public void setUp(RepositoryState state) {
+            int offset = state.rows / 2;
+            middle = PageRequest.of(offset / PAGE_SIZE, PAGE_SIZE, Sort.by("id"));
+            afterId = state.readOnly.execute(status -> state.memberRepository
+                    .findAllBy(PageRequest.of(middle.getPageNumber() * PAGE_SIZE - 1, 1, Sort.by("id")))
+                    .getContent().getFirst().getId());
+
+            List<Member> offsetRows = offsetPage(state, this);
+            List<Member> keysetRows = keysetPage(state, this);
+            if (offsetRows.size() != PAGE_SIZE || keysetRows.size() != PAGE_SIZE
+                    || !offsetRows.getFirst().getId().equals(keysetRows.getFirst().getId())) {
+                throw new IllegalStateException("offset and keyset pages differ: " + offsetRows + " / " + keysetRows);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int nextIndex(int bound) {
+            next = (next + 7919) % bound; // 매 호출 다른 회원을 고른다
+            return next;
+        }
+    }
+
+    @Benchmark
+    public List<Member> derivedQuery(RepositoryState state, Cursor cursor) {
+        String username = "member" + cursor.nextIndex(state.rows);
+        return state.readOnly.execute(status ->
+                state.memberRepository.findByUsernameAndAgeGreaterThan(username, 10));
+    }
+
+    @Benchmark
+    public List<MemberDto> dtoProjection(RepositoryState state) {
+        return state.readOnly.execute(status -> state.memberRepository.findMemberDto());
+    }
+
+    @Benchmark
+    public List<Member> fetchJoin(RepositoryState state) {
+        return state.readOnly.execute(status -> state.memberRepository.findMemberFetchJoin());
+    }
+
+    @Benchmark
+    public List<Member> entityGraph(RepositoryState state) {
+        return state.readOnly.execute(status -> state.memberRepository.findMemberEntityGraph());
+    }
+
+    @Benchmark
+    public List<Member> specification(RepositoryState state, Cursor cursor) {
+        int index = cursor.nextIndex(state.rows);
+        return state.readOnly.execute(status -> state.memberRepository.findAll(
+                MemberSpec.username("member" + index)
+                        .and(MemberSpec.teamName("team" + index % RepositoryState.TEAM_COUNT))));
+    }
+
+    @Benchmark
+    public List<MemberProjection> nativeProjection(RepositoryState state) {
+        return state.readOnly.execute(status ->
+                state.memberRepository.findByNativeProjection(PageRequest.of(0, PAGE_SIZE)).getContent());
+    }
+
+    // 중간 페이지를 offset 으로 조회
+    @Benchmark
+    public List<Member> offsetPaging(RepositoryState state, Paging paging) {
+        return offsetPage(state, paging);
+    }
+
+    // 같은 위치를 키셋으로 조회
+    @Benchmark
+    public List<Member> keysetPaging(RepositoryState state, Paging paging) {
+        return keysetPage(state, paging);
+    }
+
+    private static List<Member> offsetPage(RepositoryState state, Paging paging) {
+        return state.readOnly.execute(status -> state.memberRepository.findAllBy(paging.middle).getContent());
+    }
+
+    private static List<Member> keysetPage(RepositoryState state, Paging paging) {
+        return state.readOnly.execute(status -> state.memberRepository.findAllByOrderByIdAsc(
+                ScrollPosition.forward(Map.of("id", paging.afterId)), Limit.of(PAGE_SIZE)).getContent());
+    }
+}
@@ -0,0 +1,79 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.repository.CountMode;
+import study.datajpa.repository.MemberProjection;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnly;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 인터페이스 프로젝션(JDK 프록시, SpEL) 과 구체 클래스 프로젝션 비교
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectionBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Benchmark
+    public void pageProxy(RepositoryState state, Blackhole blackhole) {
+        List<MemberProjection> content = state.readOnly.execute(status ->
+                state.memberRepository.findByNativeProjection(PageRequest.of(0, PAGE_SIZE)).getContent());
+        consume(content, blackhole);
+    }
+
+    @Benchmark
+    public void pageView(RepositoryState state, Blackhole blackhole) {
+        List<MemberProjection> content = state.readOnly.execute(status ->
+                state.memberRepository.findProjectionPage(PageRequest.of(0, PAGE_SIZE), CountMode.EXACT).getContent());
+        consume(content, blackhole);
+    }
+
+    @Benchmark
+    public void nestedProxy(RepositoryState state, MemberRepositoryBenchmark.Cursor cursor, Blackhole blackhole) {
+        String username = "member" + cursor.nextIndex(state.rows);
+        List<NestedClosedProjections> result = state.readOnly.execute(status ->
+                state.memberRepository.findProjectionByUsername(username, NestedClosedProjections.class));
+        result.forEach(p -> blackhole.consume(p.getTeam().getName()));
+    }
+
+    @Benchmark
+    public void nestedView(RepositoryState state, MemberRepositoryBenchmark.Cursor cursor, Blackhole blackhole) {
+        String username = "member" + cursor.nextIndex(state.rows);
+        List<NestedClosedProjections> result = state.readOnly.execute(status ->
+                state.memberRepository.findNestedProjectionByUsername(username));
+        result.forEach(p -> blackhole.consume(p.getTeam().getName()));
+    }
+
+    @Benchmark
+    public void openProjectionSpel(RepositoryState state, MemberRepositoryBenchmark.Cursor cursor, Blackhole blackhole) {
+        String username = "member" + cursor.nextIndex(state.rows);
+        List<UsernameOnly> result = state.readOnly.execute(status ->
+                state.memberRepository.findProjectionByUsername(username, UsernameOnly.class));
+        result.forEach(p -> blackhole.consume(p.getUsername()));
+    }
+
+    @Benchmark
+    public void openProjectionView(RepositoryState state, MemberRepositoryBenchmark.Cursor cursor, Blackhole blackhole) {
+        String username = "member" + cursor.nextIndex(state.rows);
+        List<UsernameOnly> result = state.readOnly.execute(status ->
+                state.memberRepository.findUsernameOnlyByUsername(username));
+        result.forEach(p -> blackhole.consume(p.getUsername()));
+    }
+
+    private static void consume(List<MemberProjection> content, Blackhole blackhole) {
+        for (MemberProjection projection : content) {
+            blackhole.consume(projection.getId());
+            blackhole.consume(projection.getUsername());
+            blackhole.consume(projection.getTeamName());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 인메모리 H2 에 rows 건의 회원(팀 100개)을 넣고 스프링 컨텍스트를 띄워둔다.
+ */
+@State(Scope.Benchmark)
+public class RepositoryState {
+
+    public static final int TEAM_COUNT = 100;
+    public static final int AGE_COUNT = 100;
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    public ConfigurableApplicationContext context;
+    public MemberRepository memberRepository;
+    public TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "datajpa.n-plus-one.mode=OFF")
+                .run();
+        memberRepository = context.getBean(MemberRepository.class);
+
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private void seed() {
+        List<Team> teams = IntStream.range(0, TEAM_COUNT)
+                .mapToObj(i -> new Team("team" + i))
+                .toList();
+        memberRepository.bulkInsert(IntStream.range(0, rows)
+                .mapToObj(i -> new Member("member" + i, i % AGE_COUNT, teams.get(i % TEAM_COUNT))));
+    }
+}
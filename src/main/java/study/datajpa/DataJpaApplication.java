@@ -4,13 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
-import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
+import java.time.Clock;
 import java.util.Optional;
 import java.util.UUID;
 
 @SpringBootApplication
-@EnableJpaAuditing
 //@EnableJpaRepositories(basePackages = "study.datajpa.repository") // 스프링 부트 사용 시 불필요
 public class DataJpaApplication {
 
@@ -18,9 +17,14 @@ public class DataJpaApplication {
         SpringApplication.run(DataJpaApplication.class, args);
     }
 
-    @Bean
+    @Bean // AuditContext 가 엔티티마다 호출한다
     public AuditorAware<String> auditorProvider() {
         return () -> Optional.of(UUID.randomUUID().toString());
     }
 
+    @Bean // 감사 시각 등 현재 시각은 이 시계로 읽는다, 테스트에서 바꿔 끼운다
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+
 }
@@ -0,0 +1,10 @@
+package study.datajpa.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+// spring.threads.virtual.enabled=true 면 @Async 기본 실행기(applicationTaskExecutor) 도 가상 스레드를 사용한다
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
@@ -0,0 +1,51 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.BatchLoader;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Configuration
+public class BatchLoaderConfig {
+
+    private final Duration window;
+    private final int maxBatchSize;
+    private final TransactionTemplate readOnly;
+
+    public BatchLoaderConfig(@Value("${datajpa.loader.window:2ms}") Duration window,
+                             @Value("${datajpa.loader.max-batch-size:500}") int maxBatchSize,
+                             PlatformTransactionManager transactionManager) {
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @Bean
+    public BatchLoader<Long, Member> memberLoader(MemberRepository memberRepository) {
+        return new BatchLoader<>("member", ids -> readOnly.execute(status ->
+                index(memberRepository.findByIds(ids), Member::getId)), window, maxBatchSize);
+    }
+
+    @Bean
+    public BatchLoader<Long, Team> teamLoader(TeamRepository teamRepository) {
+        return new BatchLoader<>("team", ids -> readOnly.execute(status ->
+                index(teamRepository.findByIds(ids), Team::getId)), window, maxBatchSize);
+    }
+
+    private static <T> Map<Long, T> index(Collection<T> entities, Function<T, Long> id) {
+        return entities.stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+}
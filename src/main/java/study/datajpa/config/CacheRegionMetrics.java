@@ -0,0 +1,112 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 2차 캐시 리전별 hit/miss/put/eviction 을 Micrometer 로 노출한다.
+ * <p>
+ * JCache 표준 통계 MBean(monitoring.statistics = true) 을 읽으므로 캐시 구현체에 의존하지 않는다.
+ * 엔티티 리전은 EntityManagerFactory 생성 시 만들어지지만 쿼리 캐시 리전(member-query 등)은 처음 사용할 때 만들어지므로,
+ * 이미 있는 리전을 바인딩하고 이후에 등록되는 통계 MBean 은 등록 알림을 받아 바인딩한다.
+ * MBean 서버는 JVM 공용이므로 이 컨텍스트의 CacheManager 에 속한 리전만 바인딩한다.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class CacheRegionMetrics implements MeterBinder, DisposableBean {
+
+    private final CacheManager hibernateCacheManager;
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private final List<NotificationListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        NotificationListener listener = (notification, handback) -> {
+            if (notification instanceof MBeanServerNotification registered
+                    && MBeanServerNotification.REGISTRATION_NOTIFICATION.equals(registered.getType())
+                    && statisticsQuery().apply(registered.getMBeanName())) {
+                bind(registry, registered.getMBeanName());
+            }
+        };
+        try {
+            server.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener, null, null);
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+        listeners.add(listener);
+
+        // 알림 등록과 조회 사이에 만들어진 리전은 두 번 바인딩될 수 있지만 같은 미터가 반환된다
+        for (ObjectName name : server.queryNames(statisticsQuery(), null)) {
+            bind(registry, name);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (NotificationListener listener : listeners) {
+            try {
+                server.removeNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener);
+            } catch (JMException ignored) {
+                // 이미 제거됨
+            }
+        }
+        listeners.clear();
+    }
+
+    private void bind(MeterRegistry registry, ObjectName name) {
+        String region = name.getKeyProperty("Cache");
+        counter(registry, "cache.region.gets", name, "CacheHits", region, "hit");
+        counter(registry, "cache.region.gets", name, "CacheMisses", region, "miss");
+        counter(registry, "cache.region.puts", name, "CachePuts", region, null);
+        counter(registry, "cache.region.evictions", name, "CacheEvictions", region, null);
+        Gauge.builder("cache.region.hit.ratio", server, s -> attribute(s, name, "CacheHitPercentage"))
+                .tag("region", region)
+                .baseUnit("percent")
+                .register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String meter, ObjectName name, String attribute,
+                         String region, String result) {
+        FunctionCounter.Builder<MBeanServer> builder = FunctionCounter
+                .builder(meter, server, s -> attribute(s, name, attribute))
+                .tag("region", region);
+        if (result != null) {
+            builder.tag("result", result);
+        }
+        builder.register(registry);
+    }
+
+    private ObjectName statisticsQuery() {
+        try {
+            return new ObjectName("javax.cache:type=CacheStatistics,CacheManager=" + hibernateCacheManager.getURI() + ",*");
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double attribute(MBeanServer server, ObjectName name, String attribute) {
+        try {
+            return ((Number) server.getAttribute(name, attribute)).doubleValue();
+        } catch (JMException e) {
+            return Double.NaN; // 캐시가 닫힌 경우
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 가상 스레드 모드에서 애플리케이션 DataSource 앞에 {@link ConnectionLimitingDataSource} 를 둔다.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class ConnectionLimiterPostProcessor implements BeanPostProcessor {
+
+    private final int maxConnections;
+    private final Duration timeout;
+
+    public ConnectionLimiterPostProcessor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxConnections,
+                                          @Value("${spring.datasource.hikari.connection-timeout:30000}") long timeoutMillis) {
+        this.maxConnections = maxConnections;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)
+                && !(bean instanceof ConnectionLimitingDataSource)) {
+            return new ConnectionLimitingDataSource(dataSource, maxConnections, timeout);
+        }
+        return bean;
+    }
+}
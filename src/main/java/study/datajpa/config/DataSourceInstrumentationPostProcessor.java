@@ -0,0 +1,32 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * 애플리케이션 DataSource(빈 이름 dataSource) 를 {@link InstrumentedDataSource} 로 감싼다.
+ * 복제본 라우팅처럼 그 아래에 있는 DataSource 빈은 감싸지 않아 한 문장이 두 번 기록되지 않게 한다.
+ * <p>
+ * BeanPostProcessor 가 MeterRegistry 를 일찍 초기화하지 않도록 StatementMetrics 는 지연 조회한다.
+ */
+@Component
+public class DataSourceInstrumentationPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<StatementMetrics> metricsProvider;
+
+    public DataSourceInstrumentationPostProcessor(ObjectProvider<StatementMetrics> metricsProvider) {
+        this.metricsProvider = metricsProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)
+                && !(bean instanceof InstrumentedDataSource)) {
+            return new InstrumentedDataSource(dataSource, metricsProvider);
+        }
+        return bean;
+    }
+}
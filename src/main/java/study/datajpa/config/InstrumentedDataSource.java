@@ -0,0 +1,126 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Connection/Statement/ResultSet 을 JDK 프록시로 감싸 실행 시간과 건수를 {@link StatementMetrics} 에 기록한다.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("createStatement", "prepareStatement", "prepareCall");
+    private static final Set<String> UPDATES = Set.of("executeUpdate", "executeLargeUpdate");
+    private static final Set<String> EXECUTIONS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final ObjectProvider<StatementMetrics> metricsProvider;
+
+    public InstrumentedDataSource(DataSource targetDataSource, ObjectProvider<StatementMetrics> metricsProvider) {
+        super(targetDataSource);
+        this.metricsProvider = metricsProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (STATEMENT_FACTORIES.contains(method.getName())) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                return wrapStatement((Statement) result, sql);
+            }
+            return result;
+        });
+    }
+
+    private Statement wrapStatement(Statement statement, String preparedSql) {
+        Class<? extends Statement> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+
+        return proxy(type, statement, (proxy, method, args) -> {
+            String name = method.getName();
+            if (!EXECUTIONS.contains(name)) {
+                Object result = invoke(statement, method, args);
+                return "getResultSet".equals(name) && result != null
+                        ? wrapResultSet((ResultSet) result, preparedSql)
+                        : result;
+            }
+
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+            StatementMetrics metrics = metricsProvider.getIfAvailable();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = invoke(statement, method, args);
+                failed = false;
+                if (metrics != null && UPDATES.contains(name)) {
+                    metrics.recordRows(sql, ((Number) result).longValue());
+                }
+                return result instanceof ResultSet resultSet ? wrapResultSet(resultSet, sql) : result;
+            } finally {
+                if (metrics != null) {
+                    metrics.recordExecution(sql, System.nanoTime() - start, failed);
+                }
+            }
+        });
+    }
+
+    private ResultSet wrapResultSet(ResultSet resultSet, String sql) {
+        long[] rows = new long[1];
+        boolean[] closed = new boolean[1];
+        return proxy(ResultSet.class, resultSet, (proxy, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                rows[0]++;
+            } else if ("close".equals(method.getName()) && !closed[0]) {
+                closed[0] = true;
+                StatementMetrics metrics = metricsProvider.getIfAvailable();
+                if (metrics != null) {
+                    metrics.recordRows(sql, rows[0]);
+                }
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> target.toString();
+                    default -> handler.invoke(proxy, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package study.datajpa.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.UUID;
+
+@Configuration
+public class JpaConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(NPlusOneDetector detector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, detector);
+    }
+
+    /**
+     * 2차 캐시용 JCache CacheManager. 하이버네이트는 EntityManagerFactory 를 닫을 때 CacheManager 도 닫는데,
+     * 기본 URI 로 받으면 같은 JVM 의 다른 컨텍스트(테스트 컨텍스트 캐시 등)와 공유되어 그쪽 캐시까지 닫힌다.
+     * 컨텍스트마다 별도 URI 로 만든다. 리전 설정은 URI 와 상관없이 application.conf 를 읽는다.
+     */
+    @Bean
+    public CacheManager hibernateCacheManager() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("datajpa-" + UUID.randomUUID()), getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
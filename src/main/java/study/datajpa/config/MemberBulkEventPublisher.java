@@ -0,0 +1,62 @@
+package study.datajpa.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.event.MemberBulkUpdatedEvent;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+/**
+ * 회원/팀 리포지토리의 벌크 연산(@Modifying 쿼리, *InBatch 삭제)이 끝나면 {@link MemberBulkUpdatedEvent} 를 발행한다.
+ * <p>
+ * 벌크 연산은 엔티티 콜백을 거치지 않으므로 MemberChangedEvent/TeamChangedEvent 가 나가지 않는다.
+ * 팀 수는 회원 집계(MemberStatsRepository)가 같이 들고 있으므로 팀 벌크 연산도 다시 읽게 한다.
+ */
+@Component
+public class MemberBulkEventPublisher implements BeanPostProcessor, ApplicationEventPublisherAware {
+
+    private static final Set<String> BATCH_DELETES = Set.of("deleteAllInBatch", "deleteAllByIdInBatch", "deleteInBatch");
+
+    private ApplicationEventPublisher publisher;
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, information) -> {
+                        if (Member.class.equals(information.getDomainType()) || Team.class.equals(information.getDomainType())) {
+                            proxyFactory.addAdvice(new BulkInterceptor());
+                        }
+                    }));
+        }
+        return bean;
+    }
+
+    private class BulkInterceptor implements MethodInterceptor {
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Object result = invocation.proceed();
+            Method method = invocation.getMethod();
+            if (BATCH_DELETES.contains(method.getName()) || AnnotatedElementUtils.hasAnnotation(method, Modifying.class)) {
+                publisher.publishEvent(new MemberBulkUpdatedEvent(method.getDeclaringClass().getSimpleName() + "." + method.getName()));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 요청(또는 {@link #open()} 으로 연 범위) 안에서 실행된 select 를 SQL 모양별로 세어 N + 1 을 찾아낸다.
+ * <p>
+ * 같은 모양의 select 가 threshold 번 이상 반복되면 LOG 모드는 경고를 남기고, FAIL 모드는 예외를 던진다.
+ * 하이버네이트 {@link StatementInspector} 로 등록되어 모든 SQL 을 거친다.
+ */
+@Slf4j
+@Component
+public class NPlusOneDetector implements StatementInspector {
+
+    public enum Mode {OFF, LOG, FAIL}
+
+    private static final Pattern IN_LIST = Pattern.compile("in\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+    private final Mode mode;
+    private final int threshold;
+
+    public NPlusOneDetector(@Value("${datajpa.n-plus-one.mode:LOG}") Mode mode,
+                            @Value("${datajpa.n-plus-one.threshold:3}") int threshold) {
+        this.mode = mode;
+        this.threshold = threshold;
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    /**
+     * 현재 스레드에 감지 범위를 연다. 범위를 닫을 때 반복된 SQL 모양을 보고한다.
+     */
+    public Scope open(String name) {
+        Scope scope = new Scope(name, current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    public Scope open() {
+        return open(Thread.currentThread().getName());
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Scope scope = current.get();
+        if (scope == null || mode == Mode.OFF || !isSelect(sql)) {
+            return sql;
+        }
+
+        String shape = shapeOf(sql);
+        int count = scope.record(shape);
+        if (count == threshold && mode == Mode.FAIL) {
+            throw new IllegalStateException("N + 1 detected in [" + scope.name + "]: "
+                    + count + " x " + shape);
+        }
+        return sql;
+    }
+
+    static String shapeOf(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        return IN_LIST.matcher(shape).replaceAll("in (?)");
+    }
+
+    private static boolean isSelect(String sql) {
+        String trimmed = sql.stripLeading();
+        return trimmed.regionMatches(true, 0, "select", 0, 6)
+                || trimmed.regionMatches(true, 0, "with", 0, 4);
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final String name;
+        private final Scope parent;
+        private final Map<String, Integer> shapes = new HashMap<>();
+        private int statements;
+
+        private Scope(String name, Scope parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        private int record(String shape) {
+            statements++;
+            return shapes.merge(shape, 1, Integer::sum);
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        // threshold 번 이상 반복된 select 모양과 실행 횟수
+        public Map<String, Integer> repeatedShapes() {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            shapes.forEach((shape, count) -> {
+                if (count >= threshold) {
+                    repeated.put(shape, count);
+                }
+            });
+            return repeated;
+        }
+
+        @Override
+        public void close() {
+            if (parent == null) {
+                current.remove();
+            } else {
+                current.set(parent);
+            }
+            if (mode == Mode.LOG) {
+                repeatedShapes().forEach((shape, count) ->
+                        log.warn("N + 1 suspected in [{}]: {} x {}", name, count, shape));
+            }
+        }
+    }
+}
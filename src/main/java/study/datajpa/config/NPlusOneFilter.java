@@ -0,0 +1,33 @@
+package study.datajpa.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * HTTP 요청 하나를 N + 1 감지 범위로 묶는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class NPlusOneFilter extends OncePerRequestFilter {
+
+    private final NPlusOneDetector detector;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!detector.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try (NPlusOneDetector.Scope ignored = detector.open(request.getMethod() + " " + request.getRequestURI())) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * 하이버네이트 쿼리 플랜 캐시(HQL/JPQL) hit/miss 를 Micrometer 로 노출한다. hibernate.generate_statistics 가 필요하다.
+ * <p>
+ * Criteria 트리는 매번 새로 만들어져 이 캐시에 적중하지 않으므로 회원 Specification 은 MemberSpecPlanCache 가
+ * shape 별 JPQL 로 바꿔 이 캐시를 타게 한다.
+ */
+@Component
+public class QueryPlanCacheMetrics implements MeterBinder {
+
+    private final Statistics statistics;
+
+    public QueryPlanCacheMetrics(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("hibernate.query.plan.cache", statistics, Statistics::getQueryPlanCacheHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("hibernate.query.plan.cache", statistics, Statistics::getQueryPlanCacheMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("hibernate.query.plan.cache.hit.ratio", statistics, QueryPlanCacheMetrics::hitRatio)
+                .register(registry);
+    }
+
+    private static double hitRatio(Statistics statistics) {
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long total = hits + statistics.getQueryPlanCacheMissCount();
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+}
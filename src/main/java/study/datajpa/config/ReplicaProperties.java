@@ -0,0 +1,33 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties("datajpa.datasource")
+public class ReplicaProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    /** 복제본 지연을 초 단위로 반환하는 쿼리, 없으면 연결 가능 여부만 확인 */
+    private String lagQuery;
+
+    /** 이보다 지연된 복제본은 읽기 대상에서 제외 */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    private Duration checkInterval = Duration.ofSeconds(5);
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
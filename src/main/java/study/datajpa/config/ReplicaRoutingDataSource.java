@@ -0,0 +1,141 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션은 복제본으로, 나머지는 primary 로 보낸다.
+ * <p>
+ * 복제본은 라운드 로빈으로 고르고, 주기적으로 지연을 확인해서 maxLag 를 넘거나 연결할 수 없는 복제본은 건너뛴다.
+ * 쓸 수 있는 복제본이 없으면 primary 에서 읽는다.
+ * <p>
+ * 트랜잭션의 readOnly 여부는 커넥션을 얻은 뒤에 설정되므로 반드시 LazyConnectionDataSourceProxy 뒤에 두어야 한다.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaKeys;
+    private final ReplicaProperties properties;
+    private final Set<String> unavailable = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, ReplicaProperties properties) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.replicaKeys = new ArrayList<>(replicas.keySet());
+        this.properties = properties;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        long interval = properties.getCheckInterval().toMillis();
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        for (int i = 0; i < replicaKeys.size(); i++) {
+            String key = replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+            if (!unavailable.contains(key)) {
+                return key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    // 현재 트랜잭션이 사용할 대상 (진단용)
+    public String currentTarget() {
+        return (String) determineCurrentLookupKey();
+    }
+
+    void markUnavailable(String key) {
+        if (unavailable.add(key)) {
+            log.warn("replica [{}] removed from read routing", key);
+        }
+    }
+
+    void markAvailable(String key) {
+        if (unavailable.remove(key)) {
+            log.info("replica [{}] back in read routing", key);
+        }
+    }
+
+    private void checkReplicas() {
+        replicas.forEach((key, dataSource) -> {
+            try {
+                long lagSeconds = lagSeconds(dataSource);
+                if (lagSeconds > properties.getMaxLag().toSeconds()) {
+                    markUnavailable(key);
+                } else {
+                    markAvailable(key);
+                }
+            } catch (SQLException | RuntimeException e) {
+                markUnavailable(key);
+            }
+        });
+    }
+
+    private long lagSeconds(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            String lagQuery = properties.getLagQuery();
+            if (lagQuery == null || lagQuery.isBlank()) {
+                return connection.isValid(1) ? 0 : Long.MAX_VALUE;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                return resultSet.next() ? resultSet.getLong(1) : Long.MAX_VALUE;
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        lagChecker.shutdownNow();
+        replicas.values().forEach(ReplicaRoutingDataSource::close);
+        close(primary);
+    }
+
+    private static void close(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) {
+            hikari.close();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package study.datajpa.config;
+
+/**
+ * 현재 스레드에서 실행 중인 리포지토리 메서드 이름 (예: {@code MemberRepository.findByAge})
+ * <p>
+ * 리포지토리 안에서 다른 리포지토리를 호출해도 가장 바깥 호출 기준으로 태그를 남긴다.
+ */
+public final class RepositoryMethodContext {
+
+    public static final String NONE = "none";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMethodContext() {
+    }
+
+    public static String current() {
+        String method = CURRENT.get();
+        return method != null ? method : NONE;
+    }
+
+    static boolean enter(String method) {
+        if (CURRENT.get() != null) {
+            return false;
+        }
+        CURRENT.set(method);
+        return true;
+    }
+
+    static void exit() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,62 @@
+package study.datajpa.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 리포지토리 메서드 호출을 {@link RepositoryMethodContext} 에 기록한다.
+ * <p>
+ * 스프링 데이터 리포지토리는 프록시 생성 시점에 인터셉터를 추가하고,
+ * {@code @Repository} 클래스(MemberJpaRepository 등)는 일반 AOP 프록시로 감싼다.
+ */
+@Component
+public class RepositoryMethodTagger extends AbstractAdvisingBeanPostProcessor {
+
+    public RepositoryMethodTagger() {
+        this.advisor = new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(Repository.class, true),
+                new TaggingInterceptor(null));
+        setBeforeExistingAdvisors(true);
+    }
+
+    // 스프링 데이터 리포지토리 프록시는 생성 시점에 인터페이스 이름으로 태그하므로 AOP 로 다시 감싸지 않는다
+    @Override
+    protected boolean isEligible(Class<?> targetClass) {
+        return !org.springframework.data.repository.Repository.class.isAssignableFrom(targetClass)
+                && super.isEligible(targetClass);
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, information) -> proxyFactory.addAdvice(0,
+                            new TaggingInterceptor(information.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    private record TaggingInterceptor(String repositoryName) implements MethodInterceptor {
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            String repository = repositoryName != null
+                    ? repositoryName
+                    : ClassUtils.getUserClass(invocation.getThis()).getSimpleName();
+            if (!RepositoryMethodContext.enter(repository + "." + invocation.getMethod().getName())) {
+                return invocation.proceed();
+            }
+            try {
+                return invocation.proceed();
+            } finally {
+                RepositoryMethodContext.exit();
+            }
+        }
+    }
+}
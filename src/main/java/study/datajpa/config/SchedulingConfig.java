@@ -0,0 +1,10 @@
+package study.datajpa.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// MemberStatsRepository 재집계
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
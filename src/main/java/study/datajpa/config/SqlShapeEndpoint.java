@@ -0,0 +1,83 @@
+package study.datajpa.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 리포지토리 메서드별 SQL 모양(in 목록 크기 무시)과 실행 횟수, SQL 문자열 재사용률을 보여준다. (/actuator/sqlshapes)
+ * <p>
+ * 같은 모양이라도 SQL 문자열이 다르면 prepared statement 캐시에서 다른 항목이 된다.
+ * hitRatio 는 이미 본 SQL 문자열이 다시 실행된 비율로, 캐시 크기가 충분할 때의 문장 캐시 적중률에 해당한다.
+ */
+@Component
+@Endpoint(id = "sqlshapes")
+public class SqlShapeEndpoint {
+
+    private static final int MAX_SHAPES = 1000;
+    private static final int MAX_VARIANTS = 256;
+
+    private final Map<Key, Shape> shapes = new ConcurrentHashMap<>();
+
+    void record(String method, String sql) {
+        Key key = new Key(method, NPlusOneDetector.shapeOf(sql));
+        Shape shape = shapes.get(key);
+        if (shape == null) {
+            if (shapes.size() >= MAX_SHAPES) {
+                return;
+            }
+            shape = shapes.computeIfAbsent(key, k -> new Shape());
+        }
+        shape.record(sql);
+    }
+
+    @ReadOperation
+    public List<ShapeView> shapes() {
+        return shapes.entrySet().stream()
+                .map(entry -> entry.getValue().view(entry.getKey()))
+                .sorted(Comparator.comparingLong(ShapeView::executions).reversed())
+                .toList();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        shapes.clear();
+    }
+
+    private record Key(String method, String shape) {
+    }
+
+    public record ShapeView(String method, String shape, long executions, int variants, double hitRatio) {
+    }
+
+    private static final class Shape {
+        final LongAdder executions = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final Set<String> variants = ConcurrentHashMap.newKeySet();
+
+        void record(String sql) {
+            executions.increment();
+            if (variants.contains(sql)) {
+                return;
+            }
+            if (variants.size() < MAX_VARIANTS) { // 추적 한도를 넘은 변형은 매번 미스로 센다
+                variants.add(sql);
+            }
+            misses.increment();
+        }
+
+        ShapeView view(Key key) {
+            long total = executions.sum();
+            double hitRatio = total == 0 ? 0 : (double) (total - misses.sum()) / total;
+            return new ShapeView(key.method(), key.shape(), total, variants.size(), hitRatio);
+        }
+    }
+}
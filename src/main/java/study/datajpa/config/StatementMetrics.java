@@ -0,0 +1,125 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * JDBC 문장 단위 지연시간/반환 건수를 리포지토리 메서드 태그와 함께 Micrometer 로 기록한다.
+ * <p>
+ * 느린 쿼리는 샘플링해서 별도 스레드에서 로그로 남기고, 큐가 차면 버린다. 요청 스레드에서는 로그를 쓰지 않는다.
+ * <p>
+ * 미터는 태그 조합별로 한 번만 등록해 두고 재사용한다. 조합이 {@value #MAX_METERS} 개를 넘으면
+ * 새 리포지토리 메서드는 {@value #OVERFLOW_METHOD} 태그로 묶는다.
+ */
+@Slf4j
+@Component
+public class StatementMetrics {
+
+    static final int MAX_METERS = 1000;
+    static final String OVERFLOW_METHOD = "overflow";
+
+    private final MeterRegistry registry;
+    private final SqlShapeEndpoint sqlShapes;
+    private final long slowThresholdNanos;
+    private final double slowSampleRate;
+    private final ThreadPoolExecutor slowQueryLogger = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1000), runnable -> {
+                Thread thread = new Thread(runnable, "slow-query-log");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+    private final Map<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<MeterKey, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+
+    public StatementMetrics(MeterRegistry registry,
+                            SqlShapeEndpoint sqlShapes,
+                            @Value("${datajpa.statement.slow-threshold:200ms}") Duration slowThreshold,
+                            @Value("${datajpa.statement.slow-sample-rate:1.0}") double slowSampleRate) {
+        this.registry = registry;
+        this.sqlShapes = sqlShapes;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.slowSampleRate = slowSampleRate;
+    }
+
+    public void recordExecution(String sql, long elapsedNanos, boolean failed) {
+        String method = RepositoryMethodContext.current();
+        meter(timers, new MeterKey(method, kindOf(sql), failed ? "error" : "success"), key -> Timer.builder("db.statement")
+                .description("JDBC statement execution time")
+                .tag("repository.method", key.method())
+                .tag("kind", key.kind())
+                .tag("outcome", key.outcome())
+                .publishPercentileHistogram()
+                .register(registry))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (sql != null) {
+            sqlShapes.record(method, sql);
+        }
+
+        if (elapsedNanos >= slowThresholdNanos && ThreadLocalRandom.current().nextDouble() < slowSampleRate) {
+            slowQueryLogger.execute(() -> log.warn("slow query {}ms [{}] {}",
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), method, sql));
+        }
+    }
+
+    // select 는 ResultSet 을 닫을 때, DML 은 실행 직후 영향받은 건수를 기록
+    public void recordRows(String sql, long rows) {
+        meter(rowSummaries, new MeterKey(RepositoryMethodContext.current(), kindOf(sql), null), key -> DistributionSummary.builder("db.statement.rows")
+                .description("Rows returned or affected per JDBC statement")
+                .tag("repository.method", key.method())
+                .tag("kind", key.kind())
+                .publishPercentileHistogram()
+                .register(registry))
+                .record(rows);
+    }
+
+    private static <M> M meter(Map<MeterKey, M> meters, MeterKey key, Function<MeterKey, M> register) {
+        M meter = meters.get(key);
+        if (meter != null) {
+            return meter;
+        }
+        if (meters.size() >= MAX_METERS) {
+            key = new MeterKey(OVERFLOW_METHOD, key.kind(), key.outcome());
+        }
+        return meters.computeIfAbsent(key, register);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        slowQueryLogger.shutdown();
+    }
+
+    static String kindOf(String sql) {
+        if (sql == null) {
+            return "batch";
+        }
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String keyword = trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+        return switch (keyword) {
+            case "select", "with" -> "select";
+            case "insert", "update", "delete", "merge" -> keyword;
+            default -> "other";
+        };
+    }
+
+    private record MeterKey(String method, String kind, String outcome) {
+    }
+}
@@ -0,0 +1,22 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.BatchLoader;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final BatchLoader<Long, Member> memberLoader;
+
+    // @PathVariable("id") Member 가 도메인 클래스 컨버터(findById) 대신 memberLoader 를 거치도록 String -> Member 컨버터 등록
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, Member.class,
+                id -> memberLoader.find(Long.valueOf(id)).orElse(null));
+    }
+}
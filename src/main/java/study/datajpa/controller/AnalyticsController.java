@@ -0,0 +1,32 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.repository.MemberColumnStore;
+import study.datajpa.repository.TeamStats;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+// 분석 조회는 DB 대신 메모리의 컬럼 스냅샷에서 바로 계산한다
+@RestController
+@RequestMapping("/analytics/members")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final MemberColumnStore memberColumnStore;
+
+    @GetMapping("/ages")
+    public SortedMap<Integer, Long> ageHistogram(@RequestParam(defaultValue = "10") int bucket) {
+        return memberColumnStore.ageHistogram(Math.max(bucket, 1));
+    }
+
+    @GetMapping("/teams")
+    public Map<Long, TeamStats> teamBreakdown(@RequestParam(defaultValue = "0") int minAge,
+                                              @RequestParam(defaultValue = "" + Integer.MAX_VALUE) int maxAge) {
+        return memberColumnStore.teamBreakdown(minAge, maxAge);
+    }
+}
@@ -1,25 +1,65 @@
 package study.datajpa.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberWindowDto;
+import study.datajpa.dto.TeamSummaryDto;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.BatchLoader;
+import study.datajpa.repository.MemberAsyncRepository;
+import study.datajpa.repository.MemberQueryRepository;
 import study.datajpa.repository.MemberRepository;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_SCROLL_SIZE = 2000;
+
     private final MemberRepository memberRepository;
+    private final BatchLoader<Long, Member> memberLoader;
+    private final MemberQueryRepository memberQueryRepository;
+    private final MemberAsyncRepository memberAsyncRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable Long id) {
-        Member member = memberRepository.findById(id).get();
+        Member member = memberLoader.find(id).get(); // 동시에 들어온 단건 조회를 in 쿼리 하나로 묶는다
         return member.getUsername();
     }
 
@@ -30,14 +70,102 @@ public class MemberController {
 
     @GetMapping("/members")
     public Page<MemberDto> list(@PageableDefault(size = 5) Pageable pageable) {
-        return memberRepository.findAll(pageable)
-                .map(MemberDto::new);
+        return memberQueryRepository.findMemberDtoPage(pageable); // open-in-view 가 꺼져 있으므로 DTO 로 조회
+    }
+
+    // 서로 독립적인 조회 세 개를 동시에 실행, 응답 시간은 가장 느린 조회 하나에 가깝다
+    @GetMapping("/teams/{teamId}/summary")
+    public CompletableFuture<TeamSummaryDto> teamSummary(@PathVariable Long teamId) {
+        CompletableFuture<Optional<Team>> team = memberAsyncRepository.findTeam(teamId);
+        CompletableFuture<List<MemberDto>> members = memberAsyncRepository.findMemberDtoByTeamId(teamId);
+        CompletableFuture<Long> totalMembers = memberAsyncRepository.countMembers();
+
+        return CompletableFuture.allOf(team, members, totalMembers)
+                .thenApply(ignored -> new TeamSummaryDto(teamId,
+                        team.join().orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "team not found")).getName(),
+                        members.join(),
+                        totalMembers.join()));
+    }
+
+    // 조회 풀과 큐가 가득 차면 memberAsyncRepository 가 거부한다, 잠시 뒤 다시 시도하도록 503 으로 응답
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> rejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
+    // 커서 기반 페이징: count 쿼리 없이 다음 윈도우를 위한 불투명 커서를 반환
+    @GetMapping("/members/scroll")
+    public MemberWindowDto scroll(@RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "5") int size,
+                                  @RequestParam(defaultValue = "id") String sort) {
+        boolean byUsername = "username".equals(sort);
+        ScrollPosition position = MemberCursor.decode(cursor, byUsername);
+        Limit limit = Limit.of(Math.min(Math.max(size, 1), MAX_SCROLL_SIZE));
+
+        Window<Member> window = byUsername
+                ? memberRepository.findAllByOrderByUsernameAscIdAsc(position, limit)
+                : memberRepository.findAllByOrderByIdAsc(position, limit);
+
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? MemberCursor.encode(window.positionAt(window.size() - 1), byUsername)
+                : null;
+        return new MemberWindowDto(window.map(MemberDto::new).getContent(), nextCursor);
+    }
+
+    // 전체 회원을 NDJSON 또는 CSV 로 스트리밍, 결과 건수와 무관하게 메모리 사용량이 일정하다
+    @GetMapping("/members/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format) {
+        boolean csv = "csv".equals(format);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            if (csv) {
+                writer.write("id,username,teamName\n");
+            }
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<MemberDto> members = memberQueryRepository.streamMemberDto()) {
+                    members.forEach(member -> write(writer, member, csv));
+                }
+            });
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=members." + (csv ? "csv" : "ndjson"))
+                .body(body);
+    }
+
+    private void write(Writer writer, MemberDto member, boolean csv) {
+        try {
+            if (csv) {
+                writer.write(member.getId() + "," + csvField(member.getUsername()) + "," + csvField(member.getTeamName()) + "\n");
+            } else {
+                writer.write(objectMapper.writeValueAsString(member));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
     }
 
 //    @PostConstruct
     public void init() {
-        for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("user" + i, i));
-        }
+        memberRepository.bulkInsert(IntStream.range(0, 100)
+                .mapToObj(i -> new Member("user" + i, i)));
     }
 }
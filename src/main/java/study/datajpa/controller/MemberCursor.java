@@ -0,0 +1,55 @@
+package study.datajpa.controller;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 키셋 스크롤 위치를 클라이언트에 노출하지 않기 위한 불투명(opaque) 커서 토큰
+ * <p>
+ * id 정렬: {@code i:<id>}, username 정렬: {@code u:<id>:<username>} 을 base64url 로 인코딩한다.
+ */
+final class MemberCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private MemberCursor() {
+    }
+
+    static String encode(ScrollPosition position, boolean byUsername) {
+        Map<String, Object> keys = ((KeysetScrollPosition) position).getKeys();
+        String raw = byUsername
+                ? "u:" + keys.get("id") + ":" + keys.get("username")
+                : "i:" + keys.get("id");
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ScrollPosition decode(String cursor, boolean byUsername) {
+        if (cursor == null || cursor.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String raw = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            if (byUsername && raw.startsWith("u:")) {
+                int sep = raw.indexOf(':', 2);
+                keys.put("username", raw.substring(sep + 1));
+                keys.put("id", Long.parseLong(raw.substring(2, sep)));
+            } else if (!byUsername && raw.startsWith("i:")) {
+                keys.put("id", Long.parseLong(raw.substring(2)));
+            } else {
+                throw new IllegalArgumentException("cursor does not match sort: " + raw);
+            }
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor", e);
+        }
+    }
+}
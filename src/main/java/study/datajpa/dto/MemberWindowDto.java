@@ -0,0 +1,19 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class MemberWindowDto {
+
+    private final List<MemberDto> content;
+    private final String nextCursor; // 다음 윈도우가 없으면 null
+    private final boolean hasNext;
+
+    public MemberWindowDto(List<MemberDto> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+}
@@ -0,0 +1,21 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class TeamSummaryDto {
+
+    private final Long teamId;
+    private final String teamName;
+    private final List<MemberDto> members;
+    private final long totalMembers;
+
+    public TeamSummaryDto(Long teamId, String teamName, List<MemberDto> members, long totalMembers) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.members = members;
+        this.totalMembers = totalMembers;
+    }
+}
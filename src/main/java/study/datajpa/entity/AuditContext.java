@@ -0,0 +1,91 @@
+package study.datajpa.entity;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+/**
+ * 감사 값(등록자/시각)을 채운다.
+ * <p>
+ * 등록자는 AuditingEntityListener 처럼 엔티티마다 AuditorAware 에서 구한다.
+ * 시각은 트랜잭션 안에서 flush 가 시작될 때마다 한 번만 잡는다({@link AuditFlushListener}).
+ * 그래서 한 번의 flush 에서 수정되는 엔티티와 flush 사이에 persist 한 엔티티는 같은 시각을 공유한다.
+ */
+@Component
+public class AuditContext {
+
+    private static final Object RESOURCE_KEY = AuditContext.class;
+
+    private final AuditorAware<String> auditorAware;
+    private final Clock clock;
+
+    public AuditContext(AuditorAware<String> auditorAware, Clock clock) {
+        this.auditorAware = auditorAware;
+        this.clock = clock;
+    }
+
+    /**
+     * 엔티티 콜백이 호출되지 않는 경로(StatelessSession 등)에서 등록 감사 값을 직접 채운다.
+     */
+    public void applyCreated(Object entity) {
+        if (entity instanceof AuditTarget target) {
+            target.auditCreated(auditor(), now());
+        }
+    }
+
+    public void applyModified(Object entity) {
+        if (entity instanceof AuditTarget target) {
+            target.auditModified(auditor(), now());
+        }
+    }
+
+    String auditor() {
+        return auditorAware.getCurrentAuditor().orElse(null);
+    }
+
+    LocalDateTime now() {
+        Stamp stamp = current();
+        if (stamp == null) {
+            return LocalDateTime.now(clock);
+        }
+        if (stamp.now == null) {
+            stamp.now = LocalDateTime.now(clock);
+        }
+        return stamp.now;
+    }
+
+    // flush 시작 시 호출, 다음 감사 시각을 새로 잡게 한다
+    static void tick() {
+        Stamp stamp = (Stamp) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+        if (stamp != null) {
+            stamp.now = null;
+        }
+    }
+
+    private static Stamp current() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Stamp stamp = (Stamp) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+        if (stamp == null) {
+            stamp = new Stamp();
+            TransactionSynchronizationManager.bindResource(RESOURCE_KEY, stamp);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                }
+            });
+        }
+        return stamp;
+    }
+
+    // 트랜잭션에 묶인 스레드에서만 접근한다
+    private static final class Stamp {
+        LocalDateTime now;
+    }
+}
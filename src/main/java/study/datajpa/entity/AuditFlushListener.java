@@ -0,0 +1,12 @@
+package study.datajpa.entity;
+
+import org.hibernate.BaseSessionEventListener;
+
+// hibernate.session.events.auto 로 세션마다 등록된다
+public class AuditFlushListener extends BaseSessionEventListener {
+
+    @Override
+    public void flushStart() {
+        AuditContext.tick();
+    }
+}
@@ -0,0 +1,27 @@
+package study.datajpa.entity;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * AuditingEntityListener 대신 사용하는 감사 리스너
+ * <p>
+ * 엔티티마다 시계를 읽고 리플렉션으로 필드를 채우는 대신,
+ * {@link AuditContext} 가 flush 단위로 잡아 둔 시각과 등록자를 {@link AuditTarget} 메서드로 바로 넣는다.
+ */
+@RequiredArgsConstructor
+public class AuditListener {
+
+    private final AuditContext auditContext;
+
+    @PrePersist
+    public void prePersist(Object entity) {
+        auditContext.applyCreated(entity);
+    }
+
+    @PreUpdate
+    public void preUpdate(Object entity) {
+        auditContext.applyModified(entity);
+    }
+}
@@ -0,0 +1,11 @@
+package study.datajpa.entity;
+
+import java.time.LocalDateTime;
+
+// AuditListener 가 리플렉션 없이 감사 필드를 채우는 통로
+interface AuditTarget {
+
+    void auditCreated(String auditor, LocalDateTime now);
+
+    void auditModified(String auditor, LocalDateTime now);
+}
@@ -1,22 +1,30 @@
 package study.datajpa.entity;
 
 import jakarta.persistence.Column;
-import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
 import lombok.Getter;
-import org.springframework.data.annotation.CreatedBy;
-import org.springframework.data.annotation.LastModifiedBy;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-@EntityListeners(AuditingEntityListener.class)
+import java.time.LocalDateTime;
+
 @MappedSuperclass
 @Getter
 public class BaseEntity extends BaseTimeEntity{
 
-    @CreatedBy
     @Column(updatable = false)
     private String createdBy;
 
-    @LastModifiedBy
     private String lastModifiedBy;
+
+    @Override
+    public void auditCreated(String auditor, LocalDateTime now) {
+        super.auditCreated(auditor, now);
+        createdBy = auditor;
+        lastModifiedBy = auditor;
+    }
+
+    @Override
+    public void auditModified(String auditor, LocalDateTime now) {
+        super.auditModified(auditor, now);
+        lastModifiedBy = auditor;
+    }
 }
@@ -4,21 +4,27 @@ import jakarta.persistence.Column;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
 import lombok.Getter;
-import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
 
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners(AuditListener.class)
 @MappedSuperclass
 @Getter
-public class BaseTimeEntity {
+public class BaseTimeEntity implements AuditTarget {
 
-    @CreatedDate
     @Column(updatable = false)
     private LocalDateTime createdDate;
 
-    @LastModifiedDate
     private LocalDateTime LastModifiedDate;
+
+    @Override
+    public void auditCreated(String auditor, LocalDateTime now) {
+        createdDate = now;
+        LastModifiedDate = now;
+    }
+
+    @Override
+    public void auditModified(String auditor, LocalDateTime now) {
+        LastModifiedDate = now;
+    }
 }
@@ -1,31 +1,31 @@
 package study.datajpa.entity;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
-import jakarta.persistence.PrePersist;
-import jakarta.persistence.PreUpdate;
 import lombok.Getter;
 
 import java.time.LocalDateTime;
 
+// BaseTimeEntity 와 같은 AuditListener 로 시각을 채운다 (등록자는 사용하지 않음)
+@EntityListeners(AuditListener.class)
 @MappedSuperclass
 @Getter
-public class JpaBaseEntity {
+public class JpaBaseEntity implements AuditTarget {
 
     @Column(updatable = false)
     private LocalDateTime createdDate;
 
     private LocalDateTime updatedDate;
 
-    @PrePersist
-    public void prePersist() {
-        LocalDateTime now = LocalDateTime.now();
+    @Override
+    public void auditCreated(String auditor, LocalDateTime now) {
         createdDate = now;
         updatedDate = now;
     }
 
-    @PreUpdate
-    public void preUpdate() {
-        updatedDate = LocalDateTime.now();
+    @Override
+    public void auditModified(String auditor, LocalDateTime now) {
+        updatedDate = now;
     }
 }
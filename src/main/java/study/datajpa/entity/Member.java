@@ -2,8 +2,12 @@ package study.datajpa.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import study.datajpa.event.MemberState;
 
 @Entity
+@Table(indexes = @Index(name = "idx_member_username", columnList = "username"))
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -12,10 +16,14 @@ import lombok.*;
         query = "select m from Member m where m.username = :username"
 )
 @NamedEntityGraph(name = "Member.all", attributeNodes = @NamedAttributeNode("team"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
+@EntityListeners(MemberEventListener.class)
 public class Member extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50) // IDENTITY 는 JDBC 배치 insert 불가
     @Column(name = "member_id")
     public Long id;
 
@@ -27,6 +35,15 @@ public class Member extends BaseEntity {
     @JoinColumn(name = "team_id")
     private Team team;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version; // 낙관적 락, 벌크 수정도 함께 올린다
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private MemberState persistedState; // 마지막으로 DB 와 맞춘 상태, 변경 이벤트의 이전 값
+
     public void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);
@@ -50,6 +67,15 @@ public class Member extends BaseEntity {
         }
     }
 
+    MemberState persistedState() {
+        return persistedState;
+    }
+
+    MemberState markPersisted() {
+        persistedState = new MemberState(team != null ? team.getId() : null, username, age);
+        return persistedState;
+    }
+
     @Override
     public String toString() {
         return "Member{" +
@@ -0,0 +1,48 @@
+package study.datajpa.entity;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import study.datajpa.event.MemberChangedEvent;
+import study.datajpa.event.MemberState;
+
+import java.util.Objects;
+
+/**
+ * 회원 변경을 {@link MemberChangedEvent} 로 발행한다. 스프링 빈 컨테이너가 생성하므로 생성자 주입을 받는다.
+ * <p>
+ * 로딩/저장 시점의 상태를 회원에 기억해 두고, 수정 시 이전 상태와 함께 발행한다.
+ */
+@RequiredArgsConstructor
+public class MemberEventListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    @PostLoad
+    public void postLoad(Member member) {
+        member.markPersisted();
+    }
+
+    @PostPersist
+    public void postPersist(Member member) {
+        publisher.publishEvent(new MemberChangedEvent(member.getId(), null, member.markPersisted()));
+    }
+
+    @PostUpdate
+    public void postUpdate(Member member) {
+        MemberState before = member.persistedState();
+        MemberState after = member.markPersisted();
+        if (!Objects.equals(before, after)) { // 감사 컬럼만 바뀐 경우는 제외
+            publisher.publishEvent(new MemberChangedEvent(member.getId(), before, after));
+        }
+    }
+
+    @PostRemove
+    public void postRemove(Member member) {
+        MemberState before = member.persistedState() != null ? member.persistedState() : member.markPersisted();
+        publisher.publishEvent(new MemberChangedEvent(member.getId(), before, null));
+    }
+}
@@ -4,6 +4,10 @@ import jakarta.persistence.*;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,16 +15,24 @@ import java.util.List;
 @Entity
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
+@EntityListeners(TeamEventListener.class)
 public class Team extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50) // IDENTITY 는 JDBC 배치 insert 불가
     @Column(name = "team_id")
     private Long id;
 
     private String name;
 
+    @Version
+    private Long version;
+
     @OneToMany(mappedBy = "team")
+    @Fetch(FetchMode.SUBSELECT) // 조회한 팀들의 회원 컬렉션을 한 번의 서브쿼리로 초기화
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
@@ -0,0 +1,23 @@
+package study.datajpa.entity;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import study.datajpa.event.TeamChangedEvent;
+
+@RequiredArgsConstructor
+public class TeamEventListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    @PostPersist
+    public void postPersist(Team team) {
+        publisher.publishEvent(new TeamChangedEvent(team.getId(), false));
+    }
+
+    @PostRemove
+    public void postRemove(Team team) {
+        publisher.publishEvent(new TeamChangedEvent(team.getId(), true));
+    }
+}
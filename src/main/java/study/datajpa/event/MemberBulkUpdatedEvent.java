@@ -0,0 +1,9 @@
+package study.datajpa.event;
+
+/**
+ * 엔티티 콜백을 거치지 않는 벌크 연산(@Modifying 쿼리, deleteAllInBatch, MemberBulkUpdater)으로 회원 또는 팀 테이블이 바뀌었다.
+ * <p>
+ * 어떤 행이 바뀌었는지 모르므로 받는 쪽은 다시 읽어야 한다.
+ */
+public record MemberBulkUpdatedEvent(String source) {
+}
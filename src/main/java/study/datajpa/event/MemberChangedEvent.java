@@ -0,0 +1,9 @@
+package study.datajpa.event;
+
+/**
+ * 회원 한 건의 insert/update/delete 가 flush 된 직후 발행된다.
+ * <p>
+ * 추가는 before 가, 삭제는 after 가 null 이다. 커밋 전에 발행되므로 롤백될 수 있다.
+ */
+public record MemberChangedEvent(Long memberId, MemberState before, MemberState after) {
+}
@@ -0,0 +1,5 @@
+package study.datajpa.event;
+
+// 회원 변경 전/후 비교에 쓰는 값, teamId 가 null 이면 팀 없음
+public record MemberState(Long teamId, String username, int age) {
+}
@@ -0,0 +1,5 @@
+package study.datajpa.event;
+
+// 팀 추가/삭제가 flush 된 직후 발행된다
+public record TeamChangedEvent(Long teamId, boolean removed) {
+}
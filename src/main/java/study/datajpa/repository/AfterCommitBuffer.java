@@ -0,0 +1,58 @@
+package study.datajpa.repository;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 트랜잭션 안에서 생긴 변경을 트랜잭션마다 버퍼 하나에 모아 두었다가 커밋 후에 한 번에 넘긴다. 롤백되면 버린다.
+ * 트랜잭션 밖이면 버퍼 하나짜리로 바로 넘긴다.
+ * <p>
+ * 버퍼는 트랜잭션 리소스로 묶이므로 한 스레드에서만 쓰인다. 넘겨받는 쪽(onCommit)은 여러 트랜잭션이 동시에 부를 수 있다.
+ */
+final class AfterCommitBuffer<B> {
+
+    private final Supplier<B> factory;
+    private final Consumer<B> onCommit;
+
+    AfterCommitBuffer(Supplier<B> factory, Consumer<B> onCommit) {
+        this.factory = factory;
+        this.onCommit = onCommit;
+    }
+
+    void record(Consumer<B> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            B buffer = factory.get();
+            change.accept(buffer);
+            onCommit.accept(buffer);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        B buffer = (B) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            B created = factory.get();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    onCommit.accept(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AfterCommitBuffer.this);
+                }
+            });
+            buffer = created;
+        }
+        change.accept(buffer);
+    }
+
+    // 현재 트랜잭션에서 아직 넘기지 않은 버퍼, 기록한 적이 없거나 트랜잭션 밖이면 null
+    @SuppressWarnings("unchecked")
+    B current() {
+        return (B) TransactionSynchronizationManager.getResource(this);
+    }
+}
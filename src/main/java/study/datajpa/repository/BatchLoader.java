@@ -0,0 +1,112 @@
+package study.datajpa.repository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 짧은 시간 창(window) 동안 들어온 단건 조회 요청을 모아서 한 번의 in 쿼리로 처리한다. (DataLoader 방식)
+ * <p>
+ * 창이 끝나거나 maxBatchSize 만큼 모이면 batchFunction 을 한 번 호출하고, 같은 키를 기다리던 호출자는 결과를 공유한다.
+ * 배치는 호출자와 다른 스레드/트랜잭션에서 실행되므로 커밋된 데이터만 보이고 반환된 엔티티는 준영속 상태다. 읽기 전용 경로에서만 사용
+ */
+public class BatchLoader<K, V> implements AutoCloseable {
+
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // synchronized 는 가상 스레드를 고정시키므로 ReentrantLock 사용
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<K, CompletableFuture<Optional<V>>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public BatchLoader(String name, Function<Collection<K>, Map<K, V>> batchFunction,
+                       Duration window, int maxBatchSize) {
+        this.batchFunction = batchFunction;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "batch-loader-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<Optional<V>> load(K key) {
+        CompletableFuture<Optional<V>> future;
+        Map<K, CompletableFuture<Optional<V>>> full = null;
+        lock.lock();
+        try {
+            future = pending.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    public Optional<V> find(K key) {
+        return load(key).join();
+    }
+
+    private void flush() {
+        Map<K, CompletableFuture<Optional<V>>> batch;
+        lock.lock();
+        try {
+            batch = takePending();
+        } finally {
+            lock.unlock();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private Map<K, CompletableFuture<Optional<V>>> takePending() {
+        Map<K, CompletableFuture<Optional<V>>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<K, CompletableFuture<Optional<V>>> batch) {
+        executor.execute(() -> {
+            try {
+                Map<K, V> loaded = batchFunction.apply(batch.keySet());
+                batch.forEach((key, future) -> future.complete(Optional.ofNullable(loaded.get(key))));
+            } catch (Throwable e) {
+                batch.values().forEach(future -> future.completeExceptionally(e));
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        flush();
+        scheduler.shutdown();
+        executor.close();
+    }
+}
@@ -0,0 +1,66 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * id 범위 청크로 나눈 벌크 수정 작업의 진행 상태
+ * <p>
+ * 청크마다 별도 트랜잭션으로 커밋하고 완료된 청크를 기록하므로, 실패한 청크만 다시 실행(resume) 할 수 있다.
+ * 실패한 청크가 있으면 completion 은 예외로 끝나고, 실패한 범위와 원인은 failedChunks 에 남는다.
+ */
+@Getter
+public class BulkUpdateJob {
+
+    private final String id;
+    private final int age;
+    private final List<Chunk> chunks;
+    private final Set<Chunk> completedChunks = ConcurrentHashMap.newKeySet();
+    private final Map<Chunk, String> failedChunks = new ConcurrentHashMap<>(); // 청크 -> 실패 원인
+    private final AtomicLong updatedRows = new AtomicLong();
+    private volatile CompletableFuture<BulkUpdateJob> completion = new CompletableFuture<>();
+
+    BulkUpdateJob(String id, int age, List<Chunk> chunks) {
+        this.id = id;
+        this.age = age;
+        this.chunks = List.copyOf(chunks);
+    }
+
+    public List<Chunk> remainingChunks() {
+        return chunks.stream()
+                .filter(chunk -> !completedChunks.contains(chunk))
+                .toList();
+    }
+
+    public double progress() {
+        return chunks.isEmpty() ? 1.0 : (double) completedChunks.size() / chunks.size();
+    }
+
+    public boolean isCompleted() {
+        return completedChunks.size() == chunks.size();
+    }
+
+    void completeChunk(Chunk chunk, int rows) {
+        completedChunks.add(chunk);
+        updatedRows.addAndGet(rows);
+    }
+
+    void failChunk(Chunk chunk, Exception cause) {
+        failedChunks.put(chunk, String.valueOf(cause));
+    }
+
+    CompletableFuture<BulkUpdateJob> restart() {
+        failedChunks.clear();
+        completion = new CompletableFuture<>();
+        return completion;
+    }
+
+    public record Chunk(long fromId, long toId) {
+    }
+}
@@ -0,0 +1,19 @@
+package study.datajpa.repository;
+
+/**
+ * 페이지 조회 시 전체 건수(count) 를 구하는 방식
+ */
+public enum CountMode {
+
+    /** 매번 count 쿼리 실행 */
+    EXACT,
+
+    /** 첫 페이지가 pageSize 보다 작거나 마지막 페이지면 content 로 전체 건수를 계산하고 count 쿼리 생략 */
+    SKIP_WHEN_SHORT,
+
+    /** 조건(predicate) 별 count 결과를 TTL 동안 캐시 */
+    CACHED,
+
+    /** 테이블 통계의 추정치 사용, 추정치를 구할 수 없는 조건이면 CACHED 로 동작 */
+    ESTIMATED
+}
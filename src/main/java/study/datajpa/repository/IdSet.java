@@ -0,0 +1,61 @@
+package study.datajpa.repository;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * 정렬된 long[] 위의 불변 id 집합. 박싱된 Set&lt;Long&gt; 보다 항목당 메모리가 작고 포함 여부는 이진 탐색으로 확인한다.
+ */
+public final class IdSet {
+
+    public static final IdSet EMPTY = new IdSet(new long[0]);
+
+    private final long[] ids;
+
+    private IdSet(long[] ids) {
+        this.ids = ids;
+    }
+
+    public static IdSet of(long... ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        long[] sorted = LongStream.of(ids).sorted().distinct().toArray();
+        return new IdSet(sorted);
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(ids);
+    }
+
+    public long[] toArray() {
+        return ids.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof IdSet other && Arrays.equals(ids, other.ids);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ids);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(ids);
+    }
+}
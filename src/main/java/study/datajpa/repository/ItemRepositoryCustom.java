@@ -0,0 +1,11 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom {
+
+    // 엔티티를 로딩하지 않고 insert ... on duplicate key update 로 여러 건을 한 문장에 저장
+    UpsertResult upsertAll(Collection<Item> items);
+}
@@ -0,0 +1,77 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    // 문장 하나에 담는 행 수, 파라미터 3개씩이라 드라이버 파라미터 한도(65535) 안쪽
+    private static final int UPSERT_CHUNK_SIZE = 1000;
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 아이템을 청크 단위 다중 행 {@code insert ... on duplicate key update} 로 저장한다.
+     * <p>
+     * 감사 컬럼은 호출 시각 하나로 채우고, 이미 있는 행은 last_modified_date 만 갱신한다. 같은 id 는 한 번만 저장한다.
+     * inserted/updated 는 청크마다 이미 있는 id 를 잠그며 먼저 읽어서 센다. 영향받은 행 수는 드라이버 설정
+     * (useAffectedRows 등)과 DB 에 따라 의미가 달라 쓰지 않는다.
+     * 영속성 컨텍스트를 거치지 않으므로 이미 로딩된 Item 엔티티에는 반영되지 않는다.
+     */
+    @Override
+    @Transactional
+    public UpsertResult upsertAll(Collection<Item> items) {
+        em.flush(); // 같은 트랜잭션에서 persist 한 아이템이 뒤늦게 insert 되지 않도록 먼저 내보낸다
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        Set<String> ids = new LinkedHashSet<>(items.size() * 2);
+        items.forEach(item -> ids.add(item.getId()));
+
+        UpsertResult result = new UpsertResult(0, 0);
+        List<String> chunk = new ArrayList<>(Math.min(ids.size(), UPSERT_CHUNK_SIZE));
+        for (String id : ids) {
+            chunk.add(id);
+            if (chunk.size() == UPSERT_CHUNK_SIZE) {
+                result = result.plus(upsertChunk(chunk, now));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            result = result.plus(upsertChunk(chunk, now));
+        }
+        return result;
+    }
+
+    private UpsertResult upsertChunk(List<String> chunk, Timestamp now) {
+        // 잠가 두므로 upsert 전에 다른 트랜잭션이 같은 id 를 넣거나 지우지 못한다
+        List<String> existing = jdbcTemplate.queryForList("select id from item where id in (" +
+                String.join(",", Collections.nCopies(chunk.size(), "?")) + ") for update", String.class, chunk.toArray());
+
+        StringBuilder sql = new StringBuilder("insert into item (id, created_date, last_modified_date) values ");
+        Object[] args = new Object[chunk.size() * 3];
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+            args[i * 3] = chunk.get(i);
+            args[i * 3 + 1] = now;
+            args[i * 3 + 2] = now;
+        }
+        sql.append(" on duplicate key update last_modified_date = values(last_modified_date)");
+
+        jdbcTemplate.update(sql.toString(), args);
+        return new UpsertResult(chunk.size() - existing.size(), existing.size());
+    }
+}
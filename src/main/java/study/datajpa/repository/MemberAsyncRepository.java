@@ -0,0 +1,102 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * MemberRepository/TeamRepository 조회를 전용 스레드 풀에서 실행하고 CompletableFuture 로 돌려준다.
+ * <p>
+ * 호출마다 별도 읽기 전용 트랜잭션(영속성 컨텍스트)을 사용하므로 서로 독립적인 조회를 동시에 실행할 수 있다.
+ * 반환된 엔티티는 준영속 상태이므로 지연 로딩이 필요한 값은 DTO 조회를 사용한다.
+ * 풀과 큐가 가득 차거나 닫힌 뒤에는 RejectedExecutionException 으로 실패한 future 를 돌려준다.
+ */
+@Component
+public class MemberAsyncRepository implements AutoCloseable {
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final TransactionTemplate readOnly;
+    private final ThreadPoolExecutor executor;
+
+    public MemberAsyncRepository(MemberRepository memberRepository,
+                                 TeamRepository teamRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${datajpa.async.pool-size:8}") int poolSize,
+                                 @Value("${datajpa.async.queue-capacity:500}") int queueCapacity) {
+        this.memberRepository = memberRepository;
+        this.teamRepository = teamRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("repository-async-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+    }
+
+    /**
+     * 임의의 조회를 읽기 전용 트랜잭션 안에서 비동기로 실행한다.
+     */
+    public <T> CompletableFuture<T> read(Supplier<T> query) {
+        try {
+            return CompletableFuture.supplyAsync(() -> readOnly.execute(status -> query.get()), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Optional<Member>> findById(Long id) {
+        return read(() -> memberRepository.findById(id));
+    }
+
+    public CompletableFuture<List<Member>> findByUsername(String username) {
+        return read(() -> memberRepository.findByUsername(username));
+    }
+
+    public CompletableFuture<Optional<Team>> findTeam(Long teamId) {
+        return read(() -> teamRepository.findById(teamId));
+    }
+
+    public CompletableFuture<List<MemberDto>> findMemberDtoByTeamId(Long teamId) {
+        return read(() -> memberRepository.findMemberDtoByTeamId(teamId));
+    }
+
+    public CompletableFuture<Long> countMembers() {
+        return read(memberRepository::count);
+    }
+
+    public CompletableFuture<Long> countTeams() {
+        return read(teamRepository::count);
+    }
+
+    // 새 조회는 거부하고 진행 중인 조회는 잠시 기다린 뒤 중단한다, 스프링이 컨텍스트 종료 시 호출한다
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+    }
+}
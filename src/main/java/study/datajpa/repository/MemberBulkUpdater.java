@@ -0,0 +1,184 @@
+package study.datajpa.repository;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.event.MemberBulkUpdatedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * bulkAgePlus 를 id 범위 청크로 나눠 제한된 워커 풀에서 짧은 트랜잭션으로 실행한다.
+ * <p>
+ * 한 문장으로 넓은 범위를 잠그는 대신 청크 단위로 잠그고 커밋하며, 수정된 회원만 2차 캐시에서 제거한다.
+ * 호출한 쪽의 영속성 컨텍스트는 건드리지 않으므로, 이미 조회해 둔 회원은 필요하면 직접 refresh 해야 한다.
+ */
+@Slf4j
+@Component
+public class MemberBulkUpdater {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher publisher;
+    private final TransactionTemplate chunkTransaction;
+    private final EntityManagerFactory entityManagerFactory;
+    private final int chunkSize;
+    private final Duration throttle;
+    private final Semaphore permits;
+    private final ExecutorService workers;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(daemonThreads("bulk-update-coordinator-"));
+    private final Map<String, BulkUpdateJob> jobs = new ConcurrentHashMap<>();
+
+    public MemberBulkUpdater(JdbcTemplate jdbcTemplate,
+                             ApplicationEventPublisher publisher,
+                             PlatformTransactionManager transactionManager,
+                             EntityManagerFactory entityManagerFactory,
+                             @Value("${datajpa.bulk.parallelism:4}") int parallelism,
+                             @Value("${datajpa.bulk.chunk-size:1000}") int chunkSize,
+                             @Value("${datajpa.bulk.throttle:0ms}") Duration throttle) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.publisher = publisher;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.entityManagerFactory = entityManagerFactory;
+        this.chunkSize = chunkSize;
+        this.throttle = throttle;
+        this.permits = new Semaphore(parallelism);
+        this.workers = Executors.newFixedThreadPool(parallelism, daemonThreads("bulk-update-worker-"));
+    }
+
+    // 종료 시 shutdownNow 로 멈추므로 JVM 종료를 막지 않게 데몬 스레드로 만든다
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * age 이상인 회원의 나이를 1 올리는 작업을 시작한다.
+     * 실패하거나 중단된 청크가 있으면 completion 은 예외로 끝나고, {@link #resume} 으로 남은 청크를 다시 실행한다.
+     */
+    public BulkUpdateJob ageUpdate(int age) {
+        Map<String, Object> range = jdbcTemplate.queryForMap(
+                "select min(member_id) as min_id, max(member_id) as max_id from member where age >= ?", age);
+
+        List<BulkUpdateJob.Chunk> chunks = new ArrayList<>();
+        if (range.get("min_id") != null) {
+            long minId = ((Number) range.get("min_id")).longValue();
+            long maxId = ((Number) range.get("max_id")).longValue();
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                chunks.add(new BulkUpdateJob.Chunk(from, Math.min(from + chunkSize - 1, maxId)));
+            }
+        }
+
+        BulkUpdateJob job = new BulkUpdateJob(UUID.randomUUID().toString(), age, chunks);
+        jobs.put(job.getId(), job);
+        start(job, job.getCompletion());
+        return job;
+    }
+
+    /**
+     * 완료되지 않은 청크만 다시 실행한다.
+     */
+    public BulkUpdateJob resume(String jobId) {
+        BulkUpdateJob job = findJob(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("unknown bulk update job: " + jobId));
+        if (!job.getCompletion().isDone()) {
+            throw new IllegalStateException("bulk update job is still running: " + jobId);
+        }
+        start(job, job.restart());
+        return job;
+    }
+
+    public Optional<BulkUpdateJob> findJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void start(BulkUpdateJob job, CompletableFuture<BulkUpdateJob> completion) {
+        coordinator.execute(() -> {
+            List<CompletableFuture<Void>> running = new ArrayList<>();
+            Throwable interrupted = null;
+            try {
+                for (BulkUpdateJob.Chunk chunk : job.remainingChunks()) {
+                    permits.acquire();
+                    running.add(CompletableFuture.runAsync(() -> runChunk(job, chunk), workers)
+                            .whenComplete((ignored, e) -> permits.release()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // 남은 청크는 시작하지 않는다
+                interrupted = e;
+            }
+            Throwable stopped = interrupted;
+            CompletableFuture.allOf(running.toArray(CompletableFuture[]::new))
+                    .whenComplete((ignored, e) -> {
+                        log.info("bulk update [{}] {}/{} chunks, {} rows, {} failed", job.getId(),
+                                job.getCompletedChunks().size(), job.getChunks().size(), job.getUpdatedRows().get(),
+                                job.getFailedChunks().size());
+                        publisher.publishEvent(new MemberBulkUpdatedEvent("MemberBulkUpdater.ageUpdate"));
+                        if (job.isCompleted()) {
+                            completion.complete(job);
+                            return;
+                        }
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        completion.completeExceptionally(new IllegalStateException("bulk update [" + job.getId() + "] "
+                                + job.remainingChunks().size() + " chunks not completed, failed " + job.getFailedChunks().keySet(),
+                                cause != null ? cause : stopped));
+                    });
+        });
+    }
+
+    private void runChunk(BulkUpdateJob job, BulkUpdateJob.Chunk chunk) {
+        try {
+            List<Long> ids = chunkTransaction.execute(status -> {
+                List<Long> locked = jdbcTemplate.queryForList(
+                        "select member_id from member where member_id between ? and ? and age >= ? for update",
+                        Long.class, chunk.fromId(), chunk.toId(), job.getAge());
+                if (!locked.isEmpty()) {
+                    jdbcTemplate.update("update member set age = age + 1, version = version + 1 where member_id between ? and ? and age >= ?",
+                            chunk.fromId(), chunk.toId(), job.getAge());
+                }
+                return locked;
+            });
+
+            ids.forEach(id -> entityManagerFactory.getCache().evict(Member.class, id));
+            job.completeChunk(chunk, ids.size());
+
+            if (!throttle.isZero()) {
+                Thread.sleep(throttle.toMillis()); // 청크는 이미 커밋됐다
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("bulk update [" + job.getId() + "] interrupted");
+        } catch (RuntimeException e) {
+            log.warn("bulk update [{}] chunk {} failed", job.getId(), chunk, e);
+            job.failChunk(chunk, e);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,354 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.datajpa.event.MemberBulkUpdatedEvent;
+import study.datajpa.event.MemberChangedEvent;
+import study.datajpa.event.MemberState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 분석용으로 회원 테이블 전체를 컬럼 단위로 메모리에 들고 있는다. id 는 long[], 나이는 int[],
+ * username 과 팀은 사전 인코딩한 int[] 코드로 저장하므로 필터/집계가 기본형 배열을 한 번 훑는 루프가 되고 DB 를 거치지 않는다.
+ * <p>
+ * {@link MemberStatsRepository} 와 같이 변경 이벤트를 트랜잭션마다 모아 커밋 후에 반영하고, 벌크 연산 뒤와 주기적으로 테이블에서 다시 적재한다.
+ * 이벤트는 id 기준 upsert/delete 로 적용하므로 재적재 중에 커밋된 변경은 새 컬럼에 다시 적용해도 안전하다.
+ */
+@Slf4j
+@Repository
+public class MemberColumnStore {
+
+    private static final long NO_TEAM = 0L; // 시퀀스는 1부터 시작
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_DENSE_BUCKETS = 4096; // 구간이 이보다 많으면 배열 대신 맵으로 센다
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantLock reconciling = new ReentrantLock();
+    private final AtomicBoolean reloadRequested = new AtomicBoolean();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AfterCommitBuffer<List<MemberChangedEvent>> changes = new AfterCommitBuffer<>(ArrayList::new, this::apply);
+
+    // 아래 두 필드는 lock 으로 보호한다
+    private Columns columns = new Columns(INITIAL_CAPACITY);
+    private List<MemberChangedEvent> replay; // 재적재 중에만 null 이 아니다
+
+    public MemberColumnStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int count() {
+        return read(() -> columns.size);
+    }
+
+    /**
+     * 나이가 [minAge, maxAge] 인 회원 수. 분기 없는 단순 루프라 C2 가 SIMD 로 자동 벡터화할 수 있다.
+     */
+    public long countByAgeBetween(int minAge, int maxAge) {
+        return read(() -> {
+            int[] ages = columns.ages;
+            int size = columns.size;
+            long count = 0;
+            for (int i = 0; i < size; i++) {
+                count += (ages[i] >= minAge & ages[i] <= maxAge) ? 1 : 0;
+            }
+            return count;
+        });
+    }
+
+    // 문자열 비교 없이 사전 코드(int) 로 비교한다
+    public long countByUsername(String username) {
+        return read(() -> {
+            int code = columns.usernames.code(username);
+            if (code < 0) {
+                return 0L;
+            }
+            int[] codes = columns.usernameCodes;
+            int size = columns.size;
+            long count = 0;
+            for (int i = 0; i < size; i++) {
+                count += codes[i] == code ? 1 : 0;
+            }
+            return count;
+        });
+    }
+
+    /**
+     * 나이를 bucketWidth 단위 구간으로 나눈 히스토그램. 키는 구간 시작 나이이고 비어 있는 구간은 빠진다.
+     * 구간 수는 데이터의 최소/최대 나이로 정해지므로, 범위가 넓으면(이상치) 조밀한 배열 대신 비어 있지 않은 구간만 센다.
+     */
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("bucketWidth must be positive: " + bucketWidth);
+        }
+        return read(() -> {
+            int[] ages = columns.ages;
+            int size = columns.size;
+            SortedMap<Integer, Long> histogram = new TreeMap<>();
+            if (size == 0) {
+                return histogram;
+            }
+
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, ages[i]);
+                max = Math.max(max, ages[i]);
+            }
+            int offset = Math.floorDiv(min, bucketWidth);
+            long bucketCount = (long) Math.floorDiv(max, bucketWidth) - offset + 1;
+            if (bucketCount > MAX_DENSE_BUCKETS) {
+                for (int i = 0; i < size; i++) {
+                    histogram.merge(Math.floorDiv(ages[i], bucketWidth) * bucketWidth, 1L, Long::sum);
+                }
+                return histogram;
+            }
+
+            long[] buckets = new long[(int) bucketCount];
+            for (int i = 0; i < size; i++) {
+                buckets[Math.floorDiv(ages[i], bucketWidth) - offset]++;
+            }
+
+            for (int b = 0; b < buckets.length; b++) {
+                if (buckets[b] > 0) {
+                    histogram.put((b + offset) * bucketWidth, buckets[b]);
+                }
+            }
+            return histogram;
+        });
+    }
+
+    /**
+     * 나이가 [minAge, maxAge] 인 회원을 팀별로 센다. 팀이 없는 회원은 0 번 키로 모은다.
+     */
+    public Map<Long, TeamStats> teamBreakdown(int minAge, int maxAge) {
+        return read(() -> {
+            int[] ages = columns.ages;
+            int[] teamCodes = columns.teamCodes;
+            int size = columns.size;
+            long[] counts = new long[columns.teams.size()];
+            long[] ageSums = new long[columns.teams.size()];
+            for (int i = 0; i < size; i++) {
+                int hit = (ages[i] >= minAge & ages[i] <= maxAge) ? 1 : 0;
+                counts[teamCodes[i]] += hit;
+                ageSums[teamCodes[i]] += (long) hit * ages[i];
+            }
+
+            Map<Long, TeamStats> breakdown = new LinkedHashMap<>();
+            for (int code = 0; code < counts.length; code++) {
+                if (counts[code] > 0) {
+                    breakdown.put(columns.teams.decode(code), new TeamStats(counts[code], ageSums[code]));
+                }
+            }
+            return breakdown;
+        });
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        changes.record(committed -> committed.add(event));
+    }
+
+    /**
+     * 벌크 연산은 바뀐 회원을 알 수 없으므로 다시 적재한다. 이벤트가 몰려도 적재는 진행 중인 것 하나와 대기 하나까지만 합쳐진다.
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkUpdated(MemberBulkUpdatedEvent event) {
+        log.debug("member column store reload requested after bulk update: {}", event.source());
+        reloadRequested.set(true);
+        drainReloadRequests();
+    }
+
+    // 다른 스레드가 적재 중이면 표시만 남긴다, 그 스레드가 락을 놓은 뒤 표시를 보고 한 번 더 적재한다
+    private void drainReloadRequests() {
+        while (reloadRequested.get() && reconciling.tryLock()) {
+            try {
+                if (reloadRequested.getAndSet(false)) {
+                    reload();
+                }
+            } finally {
+                reconciling.unlock();
+            }
+        }
+    }
+
+    /**
+     * 테이블을 새 컬럼으로 다시 읽어 통째로 교체한다. 읽는 동안 커밋된 변경은 모아 두었다가 교체 직전에 새 컬럼에 다시 적용한다.
+     * 사전에서 더 이상 쓰지 않는 username 도 이때 정리된다.
+     */
+    @Scheduled(fixedDelayString = "${datajpa.columnar.reconcile-interval:5m}")
+    public void reconcile() {
+        reconciling.lock();
+        try {
+            reloadRequested.set(false); // 지금 시작하는 적재가 대기 중인 요청을 대신한다
+            reload();
+        } finally {
+            reconciling.unlock();
+        }
+        drainReloadRequests(); // 적재 중에 들어온 요청
+    }
+
+    // reconciling 을 잡은 상태에서만 호출한다
+    private void reload() {
+        write(() -> replay = new ArrayList<>());
+        Columns fresh = new Columns(Math.max(INITIAL_CAPACITY, count()));
+        try {
+            jdbcTemplate.query("select member_id, username, age, team_id from member", rs -> {
+                fresh.upsert(rs.getLong("member_id"), rs.getObject("team_id", Long.class),
+                        rs.getString("username"), rs.getInt("age"));
+            });
+        } catch (RuntimeException e) {
+            write(() -> replay = null);
+            throw e;
+        }
+
+        write(() -> {
+            replay.forEach(fresh::apply);
+            int previous = columns.size;
+            columns = fresh;
+            replay = null;
+            if (previous != fresh.size) {
+                log.info("member column store drift corrected: rows {} -> {}", previous, fresh.size);
+            }
+        });
+    }
+
+    private void apply(List<MemberChangedEvent> changes) {
+        write(() -> {
+            changes.forEach(columns::apply);
+            if (replay != null) {
+                replay.addAll(changes);
+            }
+        });
+    }
+
+    private <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long key(Long teamId) {
+        return teamId != null ? teamId : NO_TEAM;
+    }
+
+    // 행은 빈틈 없이 앞에서부터 채우고, 삭제는 마지막 행을 빈자리로 옮긴다
+    private static final class Columns {
+        long[] ids;
+        int[] ages;
+        int[] usernameCodes;
+        int[] teamCodes;
+        int size;
+        final Map<Long, Integer> rows = new HashMap<>();
+        final Dictionary<String> usernames = new Dictionary<>();
+        final Dictionary<Long> teams = new Dictionary<>();
+
+        Columns(int capacity) {
+            ids = new long[capacity];
+            ages = new int[capacity];
+            usernameCodes = new int[capacity];
+            teamCodes = new int[capacity];
+        }
+
+        void apply(MemberChangedEvent event) {
+            MemberState after = event.after();
+            if (after == null) {
+                remove(event.memberId());
+            } else {
+                upsert(event.memberId(), after.teamId(), after.username(), after.age());
+            }
+        }
+
+        void upsert(long id, Long teamId, String username, int age) {
+            Integer row = rows.get(id);
+            if (row == null) {
+                if (size == ids.length) {
+                    grow();
+                }
+                row = size++;
+                rows.put(id, row);
+                ids[row] = id;
+            }
+            ages[row] = age;
+            usernameCodes[row] = usernames.encode(username);
+            teamCodes[row] = teams.encode(key(teamId));
+        }
+
+        void remove(long id) {
+            Integer row = rows.remove(id);
+            if (row == null) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                ids[row] = ids[last];
+                ages[row] = ages[last];
+                usernameCodes[row] = usernameCodes[last];
+                teamCodes[row] = teamCodes[last];
+                rows.put(ids[row], row);
+            }
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            usernameCodes = Arrays.copyOf(usernameCodes, capacity);
+            teamCodes = Arrays.copyOf(teamCodes, capacity);
+        }
+    }
+
+    // 값 <-> 코드 사전, 코드는 0부터 순서대로 붙이고 재적재 전까지 지우지 않는다
+    private static final class Dictionary<T> {
+        final List<T> values = new ArrayList<>();
+        final Map<T, Integer> codes = new HashMap<>();
+
+        int encode(T value) {
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        int code(T value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        T decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
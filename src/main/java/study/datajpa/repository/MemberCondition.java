@@ -0,0 +1,116 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 구조(shape)와 바인딩 값을 나눠 들고 있는 회원 검색 조건, {@link MemberSpec} 이 만든다.
+ * <p>
+ * 값만 다른 조건은 shape 가 같고 같은 JPQL 로 렌더링되므로 {@link MemberSpecPlanCache} 와 하이버네이트 HQL 플랜 캐시에서
+ * 변환 결과를 재사용한다. 다른 Specification 과 섞거나 페이징하면 일반 Criteria 경로로 동작한다.
+ */
+public final class MemberCondition implements Specification<Member> {
+
+    static final MemberCondition EMPTY = new MemberCondition(List.of());
+
+    private final List<Term> terms;
+
+    private MemberCondition(List<Term> terms) {
+        this.terms = terms;
+    }
+
+    // association 이 null 이면 회원 속성, 아니면 내부 조인한 연관 엔티티의 속성과 비교한다
+    static MemberCondition equal(String association, String attribute, Object value) {
+        return new MemberCondition(List.of(new Term(association, attribute, value)));
+    }
+
+    public MemberCondition and(MemberCondition other) {
+        if (other.terms.isEmpty()) {
+            return this;
+        }
+        if (terms.isEmpty()) {
+            return other;
+        }
+        List<Term> combined = new ArrayList<>(terms);
+        combined.addAll(other.terms);
+        return new MemberCondition(List.copyOf(combined));
+    }
+
+    // 값을 뺀 구조, 값이 null 인지는 구조에 포함한다 (is null 로 렌더링)
+    List<TermShape> shape() {
+        return terms.stream()
+                .map(term -> new TermShape(term.association(), term.attribute(), term.value() == null))
+                .toList();
+    }
+
+    // 값 자리를 :p0, :p1 ... 로 둔 JPQL
+    String jpql() {
+        StringBuilder from = new StringBuilder("select m from Member m");
+        StringBuilder where = new StringBuilder();
+        Set<String> joined = new LinkedHashSet<>();
+        int parameter = 0;
+        for (Term term : terms) {
+            String alias = "m";
+            if (term.association() != null) {
+                alias = term.association();
+                if (joined.add(alias)) {
+                    from.append(" join m.").append(alias).append(' ').append(alias);
+                }
+            }
+            where.append(where.isEmpty() ? " where " : " and ").append(alias).append('.').append(term.attribute());
+            if (term.value() == null) {
+                where.append(" is null");
+            } else {
+                where.append(" = :p").append(parameter++);
+            }
+        }
+        return from.append(where).toString();
+    }
+
+    // jpql() 의 :p0, :p1 ... 순서대로 바인딩할 값
+    List<Object> parameters() {
+        return terms.stream()
+                .map(Term::value)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public Predicate toPredicate(Root<Member> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        if (terms.isEmpty()) {
+            return null;
+        }
+        Map<String, From<Member, ?>> joins = new HashMap<>();
+        Predicate[] predicates = terms.stream()
+                .map(term -> {
+                    From<Member, ?> from = term.association() == null
+                            ? root
+                            : joins.computeIfAbsent(term.association(), association -> root.join(association, JoinType.INNER));
+                    Path<Object> path = from.get(term.attribute());
+                    return term.value() == null ? criteriaBuilder.isNull(path) : criteriaBuilder.equal(path, term.value());
+                })
+                .toArray(Predicate[]::new);
+        return criteriaBuilder.and(predicates);
+    }
+
+    private record Term(String association, String attribute, Object value) {
+    }
+
+    record TermShape(String association, String attribute, boolean isNull) {
+    }
+}
@@ -2,18 +2,24 @@ package study.datajpa.repository;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Member;
+import study.datajpa.event.MemberBulkUpdatedEvent;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
+@RequiredArgsConstructor
 public class MemberJpaRepository {
 
     @PersistenceContext
     private EntityManager em;
 
+    private final ApplicationEventPublisher publisher;
+
     public Member save(Member member) {
         em.persist(member);
         return member;
@@ -69,8 +75,10 @@ public class MemberJpaRepository {
     }
 
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+        int updated = em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
                 .setParameter("age", age)
                 .executeUpdate();
+        publisher.publishEvent(new MemberBulkUpdatedEvent("MemberJpaRepository.bulkAgePlus"));
+        return updated;
     }
 }
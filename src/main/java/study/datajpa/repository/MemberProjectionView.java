@@ -0,0 +1,20 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+
+/**
+ * {@link MemberProjection} 의 구체 클래스, 조회 결과 컬럼으로 바로 생성하므로 프록시를 만들지 않는다.
+ */
+@Getter
+public final class MemberProjectionView implements MemberProjection {
+
+    private final Long id;
+    private final String username;
+    private final String teamName;
+
+    public MemberProjectionView(Long id, String username, String teamName) {
+        this.id = id;
+        this.username = username;
+        this.teamName = teamName;
+    }
+}
@@ -2,21 +2,77 @@ package study.datajpa.repository;
 
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 // 사용자 정의 리포지터리를 사용하는 것 보다 이런 식으로 따로 리포지터리를 만들어서 사용하며 관리하는게 좋은 설계인 경우도 있다.
 // 커맨드와 쿼리를 분리
+// 읽기 전용 트랜잭션: 복제본으로 라우팅되고, 하이버네이트 세션이 read-only 라 스냅샷/변경 감지를 하지 않는다
 @Repository
+@Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class MemberQueryRepository {
 
+    // MySQL 드라이버는 fetchSize 가 Integer.MIN_VALUE 이거나 useCursorFetch=true 일 때만 실제로 스트리밍한다
+    private static final int STREAM_FETCH_SIZE = 1000;
+
     private final EntityManager em;
 
     public List<Member> findAllMembers() {
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
+
+    /**
+     * forward-only 커서로 회원을 한 건씩 읽는다. 읽은 엔티티는 바로 준영속 상태로 만들어 영속성 컨텍스트가 커지지 않게 한다.
+     * <p>
+     * 스트림은 메서드가 끝난 뒤에 읽히므로 호출한 쪽의 트랜잭션 안에서만 쓸 수 있고, 다 쓰면 반드시 close 해야 한다.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+    public Stream<Member> streamAllMembers() {
+        return em.createQuery("select m from Member m", Member.class)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()
+                .map(member -> {
+                    em.detach(member);
+                    return member;
+                });
+    }
+
+    /**
+     * 화면에 필요한 컬럼(id, username, teamName)만 DTO 로 한 번에 조회한다. 엔티티를 웹 계층으로 넘기지 않으므로
+     * open-in-view 없이도 지연 로딩이 일어나지 않고, 커넥션은 쿼리 시간 동안만 사용한다.
+     * count 쿼리는 마지막 페이지처럼 전체 건수를 알 수 있으면 생략한다.
+     */
+    public Page<MemberDto> findMemberDtoPage(Pageable pageable) {
+        List<MemberDto> content = em.createQuery(QueryUtils.applySorting(
+                        "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) " +
+                                "from Member m left join m.team t", pageable.getSort(), "m"), MemberDto.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> em.createQuery("select count(m) from Member m", Long.class).getSingleResult());
+    }
+
+    // DTO 로 바로 조회하면 영속성 컨텍스트에 아무것도 올라가지 않는다, streamAllMembers 처럼 호출한 쪽의 트랜잭션이 필요하다
+    @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+    public Stream<MemberDto> streamMemberDto() {
+        return em.createQuery("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) " +
+                        "from Member m left join m.team t", MemberDto.class)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                .getResultStream();
+    }
 }
@@ -2,8 +2,11 @@ package study.datajpa.repository;
 
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.QueryHint;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import study.datajpa.dto.MemberDto;
@@ -11,13 +14,17 @@ import study.datajpa.entity.Member;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, JpaSpecificationExecutor<Member> {
 
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
 //    @Query(name = "Member.findByUsername")
+    // 쿼리 캐시(member-query)로 결과를 캐시하므로 username -> id 캐시를 거치지 않는다
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "member-query")
+    })
     List<Member> findByUsername(@Param("username") String username);
 
     @Query("select m from Member m where m.username = :username and m.age = :age")
@@ -29,20 +36,31 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t where t.id = :teamId")
+    List<MemberDto> findMemberDtoByTeamId(@Param("teamId") Long teamId);
+
     @Query("select m from Member m where m.username in :names")
     List<Member> findByNames(@Param("names") Collection<String> names);
 
-    List<Member> findListByUsername(String username); // 컬렉션 반환
-    Member findMemberByUsername(String username); // 단건 반환
-    Optional<Member> findOptionalByUsername(String username); // 단건 Optional 반환
+    @Query("select m from Member m where m.id in :ids")
+    List<Member> findByIds(@Param("ids") Collection<Long> ids); // BatchLoader 용
+
+    // findListByUsername, findMemberByUsername, findOptionalByUsername 은 MemberRepositoryCustom 으로 옮겨 username -> id 캐시를 거친다
 
-    @Query(value = "select m from Member m left join m.team t", countQuery = "select count(m) from Member m")
-    Page<Member> findByAge(int age, Pageable pageable);
+    // Page<Member> findByAge(int age, Pageable pageable) 는 MemberRepositoryCustom 으로 옮겨 count 방식을 메서드별로 정한다
 //    Slice<Member> findByAge(int age, Pageable pageable);
 //    List<Member> findByAge(int age, Pageable pageable);
 
+    // count 쿼리 없이 pageSize + 1 건만 읽는 offset 페이징
+    Slice<Member> findAllBy(Pageable pageable);
+
+    // 키셋(seek) 페이징: offset 과 count 쿼리 없이 마지막 키 다음부터 조회하므로 페이지 깊이와 무관하게 일정한 비용
+    Window<Member> findAllByOrderByIdAsc(ScrollPosition position, Limit limit);
+
+    Window<Member> findAllByOrderByUsernameAscIdAsc(ScrollPosition position, Limit limit);
+
     @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    @Query("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
     @Query("select m from Member m join fetch m.team")
@@ -63,21 +81,17 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUsername(String username);
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    // PESSIMISTIC_WRITE 대신 커밋 시점에 버전만 확인, 행 락을 잡지 않는다 (충돌 시 OptimisticRetry 로 재시도)
+    @Lock(LockModeType.OPTIMISTIC)
     List<Member> findLockByUsername(String username);
 
 //    List<UsernameOnly> findProjectionByUsername(@Param("username") String username); // @Param 어노테이션 생략 가능
 
 //    List<UsernameOnlyDto> findProjectionByUsername(@Param("username") String username); // @Param 어노테이션 생략 가능
 
+    // 타입을 호출 시점에 받으므로 프록시 경로 그대로 둔다, 자주 쓰는 조회는 findNestedProjectionByUsername 등 구체 클래스 메서드 사용
     <T> List<T> findProjectionByUsername(@Param("username") String username, Class<T> type); // @Param 어노테이션 생략 가능
 
     @Query(value = "select * from member where username = ?", nativeQuery = true)
     Member findByNativeQuery(String username);
-
-    @Query(value = "select m.member_id as id, m.username, t.name as teamName " +
-            "from member m left join team t",
-            countQuery = "select count(*) from member",
-            nativeQuery = true)
-    Page<MemberProjection> findByNativeProjection(Pageable pageable);
 }
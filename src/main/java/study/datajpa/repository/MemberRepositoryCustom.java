@@ -1,9 +1,46 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import study.datajpa.entity.Member;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    // 메서드마다 정해진 CountMode 로 count 를 구한다
+    Page<Member> findByAge(int age, Pageable pageable);
+
+    Page<MemberProjection> findByNativeProjection(Pageable pageable);
+
+    Page<Member> findPageByAge(int age, Pageable pageable, CountMode countMode);
+
+    Page<Member> findMemberPage(Pageable pageable, CountMode countMode);
+
+    long bulkInsert(Stream<Member> members);
+
+    // 프록시 없이 구체 클래스로 바로 매핑하는 프로젝션
+    Page<MemberProjection> findProjectionPage(Pageable pageable, CountMode countMode);
+
+    List<NestedClosedProjections> findNestedProjectionByUsername(String username);
+
+    List<UsernameOnly> findUsernameOnlyByUsername(String username);
+
+    // 로그인처럼 자주 쓰는 username 조회, username -> id 캐시를 거친다
+    List<Member> findCachedByUsername(String username);
+
+    // 파생 쿼리 대신 findCachedByUsername 을 거친다
+    List<Member> findListByUsername(String username); // 컬렉션 반환
+    Member findMemberByUsername(String username); // 단건 반환
+    Optional<Member> findOptionalByUsername(String username); // 단건 Optional 반환
+
+    // JpaSpecificationExecutor.findAll(Specification) 대신 shape 별로 캐시한 JPQL 로 조회한다
+    List<Member> findAll(MemberCondition condition);
+
+    // 낙관적 락 충돌 시 새 트랜잭션으로 재시도하는 수정, 바깥 트랜잭션 없이 호출한다
+    Member updateWithRetry(Long id, Consumer<Member> change);
 }
@@ -1,19 +1,263 @@
 package study.datajpa.repository;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.event.MemberState;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    // 테이블 통계의 행 수 추정치, 실제 DB 제품별로 고르고 없으면 count 쿼리 (방언은 MySQL 이어도 H2 에서 돌 수 있다)
+    private static final String H2_MEMBER_ROW_ESTIMATE =
+            "select row_count_estimate from information_schema.tables where table_schema = current_schema and upper(table_name) = 'MEMBER'";
+    private static final String MYSQL_MEMBER_ROW_ESTIMATE =
+            "select table_rows from information_schema.tables where table_schema = database() and table_name = 'member'";
+
+    // hibernate.jdbc.batch_size 와 맞춘다
+    private static final int BULK_CHUNK_SIZE = 1000;
+
     private final EntityManager em;
+    private final PageCounter pageCounter;
+    private final UsernameIdCache usernameIdCache;
+    private final OptimisticRetry optimisticRetry;
+    private final MemberSpecPlanCache specPlanCache;
+
+    private volatile Optional<String> memberRowEstimateSql;
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
+
+    // 나이별 count 는 자주 바뀌지 않으므로 캐시한다
+    @Override
+    public Page<Member> findByAge(int age, Pageable pageable) {
+        return findPageByAge(age, pageable, CountMode.CACHED);
+    }
+
+    @Override
+    public Page<Member> findPageByAge(int age, Pageable pageable, CountMode countMode) {
+        List<Member> content = em.createQuery(QueryUtils.applySorting(
+                        "select m from Member m where m.age = :age", pageable.getSort(), "m"), Member.class)
+                .setParameter("age", age)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return pageCounter.page(content, pageable, countMode, "Member.age:" + age, state -> state.age() == age,
+                () -> em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                        .setParameter("age", age)
+                        .getSingleResult(),
+                null);
+    }
+
+    @Override
+    public Page<Member> findMemberPage(Pageable pageable, CountMode countMode) {
+        List<Member> content = em.createQuery(QueryUtils.applySorting(
+                        "select m from Member m", pageable.getSort(), "m"), Member.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return pageCounter.page(content, pageable, countMode, "Member.all", MemberRepositoryImpl::anyMember,
+                () -> em.createQuery("select count(m) from Member m", Long.class)
+                        .getSingleResult(),
+                this::estimateMemberRows);
+    }
+
+    /**
+     * JDBC 배치 insert 로 회원을 대량 저장한다. 아직 저장되지 않은 팀은 회원보다 먼저 저장한다.
+     * <p>
+     * 청크마다 flush/clear 하므로 호출한 트랜잭션의 영속성 컨텍스트도 함께 비워진다.
+     * 외래 키만 저장하면 되므로 연관관계 편의 메서드가 채운 Team.members(연관관계의 주인이 아닌 쪽)도 청크마다 비워서
+     * 메모리 사용량이 입력 크기와 무관하게 한다. 전체가 한 트랜잭션이라 DB 의 undo/lock 은 입력 크기에 비례하므로
+     * 아주 큰 입력은 호출하는 쪽에서 나눠서 호출한다.
+     */
+    @Override
+    @Transactional
+    public long bulkInsert(Stream<Member> members) {
+        long count = 0;
+        Set<Team> teams = Collections.newSetFromMap(new IdentityHashMap<>());
+        Iterator<Member> iterator = members.iterator();
+        while (iterator.hasNext()) {
+            Member member = iterator.next();
+            Team team = member.getTeam();
+            if (team != null) {
+                if (team.getId() == null) {
+                    em.persist(team);
+                }
+                teams.add(team);
+            }
+            em.persist(member);
+
+            if (++count % BULK_CHUNK_SIZE == 0) {
+                flushChunk(teams);
+            }
+        }
+        flushChunk(teams);
+        return count;
+    }
+
+    private void flushChunk(Set<Team> teams) {
+        em.flush();
+        em.clear();
+        teams.forEach(team -> team.getMembers().clear()); // 준영속 팀, DB 에는 영향 없음
+        teams.clear();
+    }
+
+    @Override
+    public Page<MemberProjection> findProjectionPage(Pageable pageable, CountMode countMode) {
+        List<MemberProjection> content = Collections.unmodifiableList(em.createQuery(QueryUtils.applySorting(
+                        "select new study.datajpa.repository.MemberProjectionView(m.id, m.username, t.name) " +
+                                "from Member m left join m.team t", pageable.getSort(), "m"), MemberProjectionView.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList());
+
+        return pageCounter.page(content, pageable, countMode, "Member.all", MemberRepositoryImpl::anyMember,
+                () -> em.createQuery("select count(m) from Member m", Long.class)
+                        .getSingleResult(),
+                this::estimateMemberRows);
+    }
+
+    // 전체 회원 count 는 테이블 통계로 추정한다
+    @Override
+    public Page<MemberProjection> findByNativeProjection(Pageable pageable) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = em.createNativeQuery(QueryUtils.applySorting(
+                        "select m.member_id, m.username, t.name " +
+                                "from member m left join team t on t.team_id = m.team_id", pageable.getSort(), "m"))
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        List<MemberProjection> content = rows.stream()
+                .<MemberProjection>map(row -> new MemberProjectionView(((Number) row[0]).longValue(), (String) row[1], (String) row[2]))
+                .toList();
+
+        return pageCounter.page(content, pageable, CountMode.ESTIMATED, "Member.all", MemberRepositoryImpl::anyMember,
+                () -> ((Number) em.createNativeQuery("select count(*) from member").getSingleResult()).longValue(),
+                this::estimateMemberRows);
+    }
+
+    @Override
+    public List<NestedClosedProjections> findNestedProjectionByUsername(String username) {
+        return Collections.unmodifiableList(em.createQuery("select new study.datajpa.repository.NestedClosedProjectionsView(m.username, t.name) " +
+                        "from Member m left join m.team t where m.username = :username", NestedClosedProjectionsView.class)
+                .setParameter("username", username)
+                .getResultList());
+    }
+
+    @Override
+    public List<UsernameOnly> findUsernameOnlyByUsername(String username) {
+        return Collections.unmodifiableList(em.createQuery("select new study.datajpa.repository.UsernameOnlyView(m.username, m.age) " +
+                        "from Member m where m.username = :username", UsernameOnlyView.class)
+                .setParameter("username", username)
+                .getResultList());
+    }
+
+    /**
+     * username 으로 id 를 캐시에서 찾고 엔티티는 영속성 컨텍스트/2차 캐시에서 가져온다. 둘 다 적중하면 SQL 이 나가지 않는다.
+     */
+    @Override
+    public List<Member> findCachedByUsername(String username) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.flush(); // 파생 쿼리의 자동 flush 대신, 아직 반영 안 된 변경이 이벤트로 캐시를 무효화하게 한다
+        }
+        return usernameIdCache.findIds(username).stream()
+                .mapToObj(id -> em.find(Member.class, id))
+                .filter(member -> member != null && username.equals(member.getUsername())) // 무효화 전에 바뀐 회원 제외
+                .toList();
+    }
+
+    @Override
+    public List<Member> findListByUsername(String username) {
+        return findCachedByUsername(username);
+    }
+
+    @Override
+    public Member findMemberByUsername(String username) {
+        return findOptionalByUsername(username).orElse(null);
+    }
+
+    @Override
+    public Optional<Member> findOptionalByUsername(String username) {
+        List<Member> members = findCachedByUsername(username);
+        if (members.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, members.size()); // 파생 쿼리와 같은 예외
+        }
+        return members.stream().findFirst();
+    }
+
+    @Override
+    public List<Member> findAll(MemberCondition condition) {
+        MemberSpecPlanCache.Plan plan = specPlanCache.plan(condition);
+        TypedQuery<Member> query = em.createQuery(plan.jpql(), Member.class);
+        List<Object> parameters = condition.parameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(plan.parameterNames().get(i), parameters.get(i));
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public Member updateWithRetry(Long id, Consumer<Member> change) {
+        return optimisticRetry.execute("Member.update", () -> {
+            Member member = em.find(Member.class, id);
+            if (member == null) {
+                throw new EmptyResultDataAccessException("member not found: " + id, 1);
+            }
+            change.accept(member);
+            return member;
+        });
+    }
+
+    private long estimateMemberRows() {
+        String sql = memberRowEstimateSql();
+        List<?> result = sql != null ? em.createNativeQuery(sql).getResultList() : List.of();
+        if (result.isEmpty() || result.getFirst() == null) {
+            return em.createQuery("select count(m) from Member m", Long.class)
+                    .getSingleResult();
+        }
+        return ((Number) result.getFirst()).longValue();
+    }
+
+    private String memberRowEstimateSql() {
+        Optional<String> sql = memberRowEstimateSql;
+        if (sql == null) {
+            String product = em.unwrap(Session.class)
+                    .doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+            sql = Optional.ofNullable(switch (product) {
+                case "H2" -> H2_MEMBER_ROW_ESTIMATE;
+                case "MySQL", "MariaDB" -> MYSQL_MEMBER_ROW_ESTIMATE;
+                default -> null;
+            });
+            memberRowEstimateSql = sql;
+        }
+        return sql.orElse(null);
+    }
+
+    private static boolean anyMember(MemberState state) {
+        return true;
+    }
 }
@@ -1,25 +1,19 @@
 package study.datajpa.repository;
 
-import jakarta.persistence.criteria.*;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
-import study.datajpa.entity.Member;
-import study.datajpa.entity.Team;
 
+// 람다 대신 구조를 아는 MemberCondition 을 돌려줘서 값만 다른 조건끼리 쿼리 플랜을 공유한다 (MemberSpecPlanCache)
 public class MemberSpec {
 
-    public static Specification<Member> teamName(final String teamName) {
-        return (root, query, criteriaBuilder) -> {
-            if (StringUtils.isEmpty(teamName)) {
-                return null;
-            }
-            Join<Member, Team> t = root.join("team", JoinType.INNER);// 회원과 조인
-            return criteriaBuilder.equal(t.get("name"), teamName);
-        };
+    public static MemberCondition teamName(final String teamName) {
+        if (StringUtils.isEmpty(teamName)) {
+            return MemberCondition.EMPTY;
+        }
+        return MemberCondition.equal("team", "name", teamName); // 회원과 조인
     }
 
-    public static Specification<Member> username(final String username) {
-        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("username"), username);
+    public static MemberCondition username(final String username) {
+        return MemberCondition.equal(null, "username", username);
     }
 }
 
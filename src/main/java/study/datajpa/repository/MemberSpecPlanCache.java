@@ -0,0 +1,85 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * {@link MemberCondition} 의 구조(shape)별 JPQL 과 파라미터 이름 캐시.
+ * <p>
+ * 같은 JPQL 문자열로 조회하므로 하이버네이트 HQL 플랜 캐시에서 파싱/SQL 변환 결과도 재사용된다.
+ * shape 별 hit/miss 를 member.spec.plan.cache{shape, result} 로 노출하고, {@value #MAX_SHAPES} 개를 넘는 shape 는
+ * 캐시하지 않고 shape=overflow 의 miss 로 센다.
+ */
+@Component
+public class MemberSpecPlanCache {
+
+    private static final int MAX_SHAPES = 100;
+
+    private final MeterRegistry registry;
+    private final Map<List<MemberCondition.TermShape>, Plan> plans = new ConcurrentHashMap<>();
+    private final Counter overflow;
+
+    public MemberSpecPlanCache(MeterRegistry registry) {
+        this.registry = registry;
+        this.overflow = Counter.builder("member.spec.plan.cache")
+                .tag("shape", "overflow")
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    Plan plan(MemberCondition condition) {
+        List<MemberCondition.TermShape> shape = condition.shape();
+        Plan plan = plans.get(shape);
+        if (plan != null) {
+            plan.hits.increment();
+            return plan;
+        }
+        if (plans.size() >= MAX_SHAPES) {
+            overflow.increment();
+            return new Plan(condition);
+        }
+        return plans.computeIfAbsent(shape, key -> register(new Plan(condition)));
+    }
+
+    private Plan register(Plan plan) {
+        FunctionCounter.builder("member.spec.plan.cache", plan.hits, LongAdder::sum)
+                .tag("shape", plan.jpql())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("member.spec.plan.cache", plan, p -> 1)
+                .tag("shape", plan.jpql())
+                .tag("result", "miss")
+                .register(registry);
+        return plan;
+    }
+
+    static final class Plan {
+
+        private final String jpql;
+        private final List<String> parameterNames;
+        private final LongAdder hits = new LongAdder();
+
+        private Plan(MemberCondition condition) {
+            this.jpql = condition.jpql();
+            this.parameterNames = IntStream.range(0, condition.parameters().size())
+                    .mapToObj(i -> "p" + i)
+                    .toList();
+        }
+
+        String jpql() {
+            return jpql;
+        }
+
+        List<String> parameterNames() {
+            return parameterNames;
+        }
+    }
+}
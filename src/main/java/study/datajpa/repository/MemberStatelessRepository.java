@@ -0,0 +1,227 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.AuditContext;
+import study.datajpa.entity.Member;
+import study.datajpa.event.MemberChangedEvent;
+import study.datajpa.event.MemberState;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 하이버네이트 StatelessSession 으로 회원을 읽고 쓰는 배치 작업용 리포지토리
+ * <p>
+ * 영속성 컨텍스트, 스냅샷, 변경 감지, cascade, 2차 캐시, 엔티티 콜백이 모두 없다. 메모리는 결과 크기만큼만 쓰고
+ * 수정은 {@link #update} 를 호출해야만 반영된다. 현재 스프링 트랜잭션의 JDBC 커넥션을 그대로 사용하므로
+ * 같은 트랜잭션으로 커밋/롤백된다. 반환된 엔티티의 지연 로딩 연관관계는 초기화할 수 없다.
+ * 감사 값은 {@link AuditContext} 로 직접 채우고, 쓰기 후에는 2차 캐시에서 제거하고 회원마다 {@link MemberChangedEvent} 를 발행한다.
+ * 엔티티 콜백이 없으므로 수정/삭제 전 상태는 호출마다 in 쿼리 한 번으로 읽는다. 여러 건은 {@link #updateAll}/{@link #deleteAll} 로 묶어서 호출한다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberStatelessRepository {
+
+    private final SessionFactory sessionFactory;
+    private final DataSource dataSource;
+    private final AuditContext auditContext;
+    private final ApplicationEventPublisher publisher;
+
+    public MemberStatelessRepository(EntityManagerFactory entityManagerFactory, DataSource dataSource,
+                                     AuditContext auditContext, ApplicationEventPublisher publisher) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.dataSource = dataSource;
+        this.auditContext = auditContext;
+        this.publisher = publisher;
+    }
+
+    public List<Member> findAll() {
+        return execute(session -> session.createQuery("select m from Member m", Member.class)
+                .getResultList());
+    }
+
+    public List<Member> findByAge(int age) {
+        return execute(session -> session.createQuery("select m from Member m where m.age = :age", Member.class)
+                .setParameter("age", age)
+                .getResultList());
+    }
+
+    public Page<Member> findAll(Pageable pageable) {
+        return execute(session -> {
+            List<Member> content = session.createQuery(QueryUtils.applySorting(
+                            "select m from Member m", pageable.getSort(), "m"), Member.class)
+                    .setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize())
+                    .getResultList();
+            return PageableExecutionUtils.getPage(content, pageable,
+                    () -> session.createQuery("select count(m) from Member m", Long.class).getSingleResult());
+        });
+    }
+
+    /**
+     * 전체 회원을 id 순 키셋 청크로 읽어 넘긴다. 청크를 넘긴 뒤에는 참조를 잡고 있지 않으므로 행 수와 무관하게 메모리가 일정하다.
+     */
+    public long scanAll(int chunkSize, Consumer<List<Member>> consumer) {
+        return execute(session -> {
+            long scanned = 0;
+            long lastId = Long.MIN_VALUE;
+            while (true) {
+                List<Member> chunk = session.createQuery(
+                                "select m from Member m where m.id > :lastId order by m.id", Member.class)
+                        .setParameter("lastId", lastId)
+                        .setMaxResults(chunkSize)
+                        .getResultList();
+                if (chunk.isEmpty()) {
+                    return scanned;
+                }
+                consumer.accept(chunk);
+                scanned += chunk.size();
+                lastId = chunk.getLast().getId();
+            }
+        });
+    }
+
+    /**
+     * 연관된 팀은 cascade 되지 않으므로 먼저 저장되어 있어야 한다.
+     */
+    @Transactional
+    public long insertAll(Iterable<Member> members) {
+        List<Member> inserted = execute(session -> {
+            List<Member> saved = new ArrayList<>();
+            for (Member member : members) {
+                auditContext.applyCreated(member);
+                session.insert(member);
+                saved.add(member);
+            }
+            return saved;
+        });
+        inserted.forEach(member -> publisher.publishEvent(new MemberChangedEvent(member.getId(), null, state(member))));
+        return inserted.size();
+    }
+
+    @Transactional
+    public void update(Member member) {
+        updateAll(List.of(member));
+    }
+
+    @Transactional
+    public void updateAll(Iterable<Member> members) {
+        List<Member> targets = new ArrayList<>();
+        members.forEach(targets::add);
+        Map<Long, MemberState> before = execute(session -> {
+            Map<Long, MemberState> states = loadStates(session, targets);
+            for (Member member : targets) {
+                auditContext.applyModified(member);
+                session.update(member); // @Version 이 있으므로 버전을 확인하고 올린다
+            }
+            return states;
+        });
+        for (Member member : targets) {
+            afterWrite(member.getId(), before.get(member.getId()), state(member));
+        }
+    }
+
+    @Transactional
+    public void delete(Member member) {
+        deleteAll(List.of(member));
+    }
+
+    @Transactional
+    public void deleteAll(Iterable<Member> members) {
+        List<Member> targets = new ArrayList<>();
+        members.forEach(targets::add);
+        Map<Long, MemberState> before = execute(session -> {
+            Map<Long, MemberState> states = loadStates(session, targets);
+            for (Member member : targets) {
+                session.delete(member);
+            }
+            return states;
+        });
+        for (Member member : targets) {
+            afterWrite(member.getId(), before.get(member.getId()), null);
+        }
+    }
+
+    private Map<Long, MemberState> loadStates(StatelessSession session, List<Member> members) {
+        List<Long> ids = members.stream().map(Member::getId).toList();
+        Map<Long, MemberState> states = new HashMap<>(ids.size() * 2);
+        if (ids.isEmpty()) {
+            return states;
+        }
+        session.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(member -> states.put(member.getId(), state(member)));
+        return states;
+    }
+
+    private void afterWrite(Long id, MemberState before, MemberState after) {
+        sessionFactory.getCache().evict(Member.class, id);
+        if (before != null) { // 없으면 이미 지워진 회원, 쓰기는 버전 확인에서 실패한다
+            publisher.publishEvent(new MemberChangedEvent(id, before, after));
+        }
+    }
+
+    // 팀은 프록시여도 id 만 읽으므로 초기화하지 않는다
+    private static MemberState state(Member member) {
+        return new MemberState(member.getTeam() != null ? member.getTeam().getId() : null,
+                member.getUsername(), member.getAge());
+    }
+
+    private <T> T execute(Function<StatelessSession, T> work) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (StatelessSession session = sessionFactory.withStatelessOptions().connection(springManaged(connection)).openStatelessSession()) {
+            // 쌓인 JDBC 배치는 하이버네이트 트랜잭션 커밋 때 실행된다 (close 는 배치를 버린다)
+            Transaction transaction = session.beginTransaction();
+            T result;
+            try {
+                result = work.apply(session);
+            } catch (RuntimeException e) {
+                transaction.rollback();
+                throw e;
+            }
+            transaction.commit();
+            return result;
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // 실제 커밋/롤백은 스프링 트랜잭션이 하므로 하이버네이트 트랜잭션의 커밋/롤백/자동 커밋 변경은 커넥션에 전달하지 않는다
+    private static Connection springManaged(Connection target) {
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(), new Class<?>[]{ConnectionProxy.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "commit", "rollback", "setAutoCommit" -> null;
+                    case "getTargetConnection" -> target;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> {
+                        try {
+                            yield method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    }
+                });
+    }
+}
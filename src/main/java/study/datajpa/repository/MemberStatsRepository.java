@@ -0,0 +1,203 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.datajpa.event.MemberBulkUpdatedEvent;
+import study.datajpa.event.MemberChangedEvent;
+import study.datajpa.event.MemberState;
+import study.datajpa.event.TeamChangedEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 회원 수, 팀 수, 팀별 회원 수/평균 나이, 나이별 회원 수를 메모리에 유지하고 O(1) 로 읽는다.
+ * <p>
+ * 엔티티 변경 이벤트를 트랜잭션마다 모아 두었다가 커밋 후에 한 번에 반영하므로 롤백된 변경은 반영되지 않는다.
+ * 벌크 연산은 어떤 행이 바뀌었는지 모르므로 다시 집계하고, 주기적인 재집계로 누락된 변경(다른 애플리케이션, 직접 SQL)을 바로잡는다.
+ * 재집계 중에 커밋된 변경은 {@link MemberColumnStore} 처럼 모아 두었다가 새 집계에 다시 적용한다.
+ */
+@Slf4j
+@Repository
+public class MemberStatsRepository {
+
+    private static final long NO_TEAM = 0L; // 시퀀스는 1부터 시작
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantLock reconciling = new ReentrantLock();
+    private final AfterCommitBuffer<Changes> changes = new AfterCommitBuffer<>(Changes::new, this::apply);
+
+    // 읽기는 락 없이 stats 를 읽고, 변경 적용과 교체는 applying 을 잡는다
+    private final Object applying = new Object();
+    private volatile Stats stats = new Stats();
+    private List<Changes> replay; // 재집계 중에만 null 이 아니다, applying 으로 보호
+
+    public MemberStatsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long countMembers() {
+        return stats.members.get();
+    }
+
+    public long countTeams() {
+        return stats.teams.get();
+    }
+
+    public long countByAge(int age) {
+        return stats.ages.getOrDefault(age, 0L);
+    }
+
+    public TeamStats findTeamStats(Long teamId) {
+        return stats.teamStats.getOrDefault(key(teamId), TeamStats.EMPTY);
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        changes.record(committed -> committed.members.add(event));
+    }
+
+    @EventListener
+    public void onTeamChanged(TeamChangedEvent event) {
+        changes.record(committed -> committed.teams.add(event));
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkUpdated(MemberBulkUpdatedEvent event) {
+        log.debug("member stats reconcile after bulk update: {}", event.source());
+        reconcile();
+    }
+
+    /**
+     * 테이블을 다시 집계해서 통째로 교체한다.
+     * <p>
+     * 합계만으로는 집계 중에 커밋된 변경이 이미 포함됐는지 알 수 없으므로, 회원별 (팀, 나이) 와 팀 id 를 읽어 집계하고
+     * 그동안 커밋된 변경은 id 기준으로 다시 적용한다. 이미 포함된 변경은 같은 상태로 바꾸는 셈이라 두 번 세지 않는다.
+     * 회원별 상태는 재집계하는 동안에만 들고 있다.
+     */
+    @Scheduled(fixedDelayString = "${datajpa.aggregate.reconcile-interval:5m}")
+    public void reconcile() {
+        reconciling.lock();
+        try {
+            synchronized (applying) {
+                replay = new ArrayList<>();
+            }
+            Stats fresh = new Stats();
+            Map<Long, MemberState> members = new HashMap<>();
+            Set<Long> teams = new HashSet<>();
+            try {
+                jdbcTemplate.query("select member_id, team_id, age from member", rs -> {
+                    MemberState state = new MemberState(rs.getObject("team_id", Long.class), null, rs.getInt("age"));
+                    members.put(rs.getLong("member_id"), state);
+                    fresh.add(state, 1);
+                });
+                jdbcTemplate.query("select team_id from team", rs -> {
+                    teams.add(rs.getLong("team_id"));
+                });
+            } catch (RuntimeException e) {
+                synchronized (applying) {
+                    replay = null;
+                }
+                throw e;
+            }
+            fresh.teams.set(teams.size());
+
+            synchronized (applying) {
+                replay.forEach(committed -> committed.replayOnto(fresh, members, teams));
+                replay = null;
+                Stats previous = stats;
+                stats = fresh;
+                if (previous.members.get() != fresh.members.get() || previous.teams.get() != fresh.teams.get()) {
+                    log.info("member stats drift corrected: members {} -> {}, teams {} -> {}",
+                            previous.members.get(), fresh.members.get(), previous.teams.get(), fresh.teams.get());
+                }
+            }
+        } finally {
+            reconciling.unlock();
+        }
+    }
+
+    private void apply(Changes committed) {
+        synchronized (applying) {
+            committed.applyTo(stats);
+            if (replay != null) {
+                replay.add(committed);
+            }
+        }
+    }
+
+    private static long key(Long teamId) {
+        return teamId != null ? teamId : NO_TEAM;
+    }
+
+    private static final class Stats {
+        final AtomicLong members = new AtomicLong();
+        final AtomicLong teams = new AtomicLong();
+        final Map<Long, TeamStats> teamStats = new ConcurrentHashMap<>();
+        final Map<Integer, Long> ages = new ConcurrentHashMap<>();
+
+        void add(MemberState state, int sign) {
+            // 합이 0 이 되면 merge 가 null 을 받아 항목을 지운다
+            teamStats.merge(key(state.teamId()), new TeamStats(sign, (long) sign * state.age()), (current, change) -> {
+                TeamStats merged = current.plus(change);
+                return merged.memberCount() == 0 ? null : merged;
+            });
+            ages.merge(state.age(), (long) sign, (current, change) -> current + change == 0 ? null : current + change);
+            members.addAndGet(sign);
+        }
+    }
+
+    // 트랜잭션 하나에서 커밋된 변경
+    private static final class Changes {
+        final List<MemberChangedEvent> members = new ArrayList<>();
+        final List<TeamChangedEvent> teams = new ArrayList<>();
+
+        void applyTo(Stats stats) {
+            for (MemberChangedEvent event : members) {
+                if (event.before() != null) {
+                    stats.add(event.before(), -1);
+                }
+                if (event.after() != null) {
+                    stats.add(event.after(), 1);
+                }
+            }
+            for (TeamChangedEvent event : teams) {
+                stats.teams.addAndGet(event.removed() ? -1 : 1);
+            }
+        }
+
+        // 재집계 결과에 이미 들어 있을 수 있으므로 before 대신 읽어 둔 상태를 빼고 after 로 맞춘다
+        void replayOnto(Stats fresh, Map<Long, MemberState> memberStates, Set<Long> teamIds) {
+            for (MemberChangedEvent event : members) {
+                MemberState current = event.after() != null
+                        ? memberStates.put(event.memberId(), event.after())
+                        : memberStates.remove(event.memberId());
+                if (current != null) {
+                    fresh.add(current, -1);
+                }
+                if (event.after() != null) {
+                    fresh.add(event.after(), 1);
+                }
+            }
+            for (TeamChangedEvent event : teams) {
+                boolean changed = event.removed() ? teamIds.remove(event.teamId()) : teamIds.add(event.teamId());
+                if (changed) {
+                    fresh.teams.addAndGet(event.removed() ? -1 : 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.event.MemberChangedEvent;
+import study.datajpa.event.MemberState;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 회원 나이/username 수정을 메모리에서 id 별로 합쳐 두었다가 배치 UPDATE 로 내보내는 쓰기 지연(write-behind) 버퍼
+ * <p>
+ * 같은 회원을 초당 여러 번 수정해도 flush 한 번에 UPDATE 한 건만 나간다. 대기 중인 회원 수가 max-pending 에 닿거나
+ * flush-interval 이 지나면 내보내고, 애플리케이션 종료 시 남은 변경을 모두 내보낸다(종료 후의 수정은 거부).
+ * 영속성 컨텍스트를 거치지 않으므로 flush 전에는 조회 결과에 보이지 않는다. 필요한 호출자만 골라서 사용한다.
+ * <p>
+ * UPDATE 전에 대상 행을 잠그고 읽어서 회원마다 {@link MemberChangedEvent} 를 발행하므로, 집계/캐시는 전체를 다시 읽지 않고
+ * 바뀐 회원만 반영한다.
+ * <p>
+ * UPDATE 는 version 을 조건으로 걸고 올린다. expectedVersion 을 받은 수정은 그 사이 다른 곳(JPA 수정 등)에서 회원이 바뀌었으면
+ * 충돌로 보고 버린다(member.write-behind.conflicts). expectedVersion 없는 수정은 flush 시점의 값에 덮어쓰는
+ * last-writer-wins 이다. addAge 는 순서와 무관하게 더해지므로 version 을 받지 않는다.
+ * 어느 쪽이든 version 을 올리므로 먼저 읽어 둔 JPA 쪽 수정은 낙관적 락 충돌이 난다.
+ */
+@Slf4j
+@Component
+public class MemberWriteBehind {
+
+    private static final String UPDATE_SQL = "update member set username = coalesce(?, username), " +
+            "age = coalesce(?, age) + ?, version = version + 1 where member_id = ? and version = ?";
+    private static final String SELECT_FOR_UPDATE_SQL = "select member_id, team_id, username, age, version from member " +
+            "where member_id in (%s) for update";
+    private static final int SHUTDOWN_FLUSH_ATTEMPTS = 3;
+    private static final long SHUTDOWN_RETRY_BACKOFF_MILLIS = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTransaction;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher publisher;
+    private final int maxPending;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final boolean periodicFlush;
+    private final Timer flushTimer;
+    private final Counter conflicts;
+    private final DistributionSummary flushSize;
+
+    // 쓰기는 읽기 락으로 동시에, flush 는 쓰기 락으로 버퍼를 통째로 교체
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Map<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+    private volatile boolean closed; // swapLock 의 쓰기 락 안에서만 바꾼다
+
+    public MemberWriteBehind(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             EntityManagerFactory entityManagerFactory,
+                             ApplicationEventPublisher publisher,
+                             MeterRegistry registry,
+                             @Value("${datajpa.write-behind.max-pending:10000}") int maxPending,
+                             @Value("${datajpa.write-behind.batch-size:1000}") int batchSize,
+                             @Value("${datajpa.write-behind.flush-interval:100ms}") Duration flushInterval,
+                             @Value("${datajpa.write-behind.periodic-flush:true}") boolean periodicFlush) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.entityManagerFactory = entityManagerFactory;
+        this.publisher = publisher;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.periodicFlush = periodicFlush;
+        this.flushTimer = Timer.builder("member.write-behind.flush")
+                .description("Time to write coalesced member updates")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.flushSize = DistributionSummary.builder("member.write-behind.flush.rows")
+                .description("Members written per flush")
+                .register(registry);
+        this.conflicts = Counter.builder("member.write-behind.conflicts")
+                .description("Member updates dropped because the member changed after the expected version")
+                .register(registry);
+        Gauge.builder("member.write-behind.pending", this, MemberWriteBehind::pendingCount)
+                .description("Members with updates waiting to be written")
+                .register(registry);
+    }
+
+    // 주기적인 flush 를 끄면 max-pending, 직접 호출한 flush, 종료 시에만 내보낸다
+    @PostConstruct
+    public void start() {
+        if (!periodicFlush) {
+            return;
+        }
+        long intervalNanos = flushInterval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void addAge(Long memberId, int delta) {
+        update(memberId, null, update -> update.ageDelta += delta);
+    }
+
+    public void setAge(Long memberId, int age) {
+        setAge(memberId, age, null);
+    }
+
+    /**
+     * @param expectedVersion 호출한 쪽이 읽은 회원의 version, flush 시점에 다르면 이 회원의 대기 중인 수정을 모두 버린다
+     * @throws OptimisticLockingFailureException 같은 회원의 대기 중인 수정이 다른 version 을 기대하고 있을 때
+     */
+    public void setAge(Long memberId, int age, Long expectedVersion) {
+        update(memberId, expectedVersion, update -> {
+            update.age = age;
+            update.ageDelta = 0;
+        });
+    }
+
+    public void setUsername(Long memberId, String username) {
+        setUsername(memberId, username, null);
+    }
+
+    /**
+     * @param expectedVersion 호출한 쪽이 읽은 회원의 version, flush 시점에 다르면 이 회원의 대기 중인 수정을 모두 버린다
+     * @throws OptimisticLockingFailureException 같은 회원의 대기 중인 수정이 다른 version 을 기대하고 있을 때
+     */
+    public void setUsername(Long memberId, String username, Long expectedVersion) {
+        if (username == null) {
+            throw new IllegalArgumentException("username must not be null");
+        }
+        update(memberId, expectedVersion, update -> update.username = username);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void update(Long memberId, Long expectedVersion, Consumer<PendingUpdate> change) {
+        int size;
+        swapLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("member write-behind is shut down, update rejected: " + memberId);
+            }
+            Map<Long, PendingUpdate> current = pending;
+            current.compute(memberId, (id, update) -> {
+                PendingUpdate merged = update != null ? update : new PendingUpdate();
+                merged.expect(memberId, expectedVersion);
+                change.accept(merged);
+                return merged;
+            });
+            size = current.size();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        if (size >= maxPending && !scheduler.isShutdown() && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * 대기 중인 변경을 지금 내보낸다. 실패하면 변경을 버퍼로 되돌리고 예외를 던진다.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            Map<Long, PendingUpdate> batch;
+            swapLock.writeLock().lock();
+            try {
+                batch = pending;
+                if (batch.isEmpty()) {
+                    return;
+                }
+                pending = new ConcurrentHashMap<>();
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+
+            try {
+                flushTimer.record(() -> write(batch));
+            } catch (RuntimeException e) {
+                requeue(batch);
+                throw e;
+            }
+            flushSize.record(batch.size());
+            batch.keySet().forEach(id -> entityManagerFactory.getCache().evict(Member.class, id));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // 청크마다 대상 행을 잠그고 이전 상태를 읽은 뒤 UPDATE, 변경 이벤트는 이 트랜잭션이 커밋된 뒤에 반영된다
+    private void write(Map<Long, PendingUpdate> batch) {
+        List<Long> ids = new ArrayList<>(batch.keySet());
+        flushTransaction.executeWithoutResult(status -> {
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+                Map<Long, MemberState> before = new HashMap<>(chunk.size() * 2);
+                Map<Long, Long> versions = new HashMap<>(chunk.size() * 2);
+                jdbcTemplate.query(SELECT_FOR_UPDATE_SQL.formatted(String.join(",", Collections.nCopies(chunk.size(), "?"))),
+                        rs -> {
+                            long id = rs.getLong("member_id");
+                            before.put(id, new MemberState(rs.getObject("team_id", Long.class),
+                                    rs.getString("username"), rs.getInt("age")));
+                            versions.put(id, rs.getLong("version"));
+                        }, chunk.toArray());
+
+                List<Long> updated = new ArrayList<>(before.size()); // 삭제된 회원은 건너뛴다
+                List<Object[]> rows = new ArrayList<>(before.size());
+                for (Long id : chunk) {
+                    if (!before.containsKey(id)) {
+                        continue;
+                    }
+                    PendingUpdate update = batch.get(id);
+                    Long version = update.expectedVersion != null ? update.expectedVersion : versions.get(id);
+                    updated.add(id);
+                    rows.add(new Object[]{update.username, update.age, update.ageDelta, id, version});
+                }
+                int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+
+                // 잠근 행이므로 0 건이면 기대한 version 과 다른 것, 드라이버가 건수를 모르면(SUCCESS_NO_INFO) 반영된 것으로 본다
+                List<Long> conflicted = new ArrayList<>();
+                for (int i = 0; i < counts.length; i++) {
+                    Long id = updated.get(i);
+                    if (counts[i] == 0) {
+                        conflicted.add(id);
+                    } else {
+                        MemberState state = before.get(id);
+                        publisher.publishEvent(new MemberChangedEvent(id, state, batch.get(id).applyTo(state)));
+                    }
+                }
+                if (!conflicted.isEmpty()) {
+                    conflicts.increment(conflicted.size());
+                    log.warn("member write-behind dropped {} updates, members changed after the expected version: {}",
+                            conflicted.size(), conflicted);
+                }
+            }
+        });
+    }
+
+    // 실패한 배치 뒤에 들어온 변경이 더 최신이므로 그 위에 덮어쓴다
+    private void requeue(Map<Long, PendingUpdate> failed) {
+        swapLock.readLock().lock();
+        try {
+            failed.forEach((id, older) -> pending.merge(id, older, (newer, old) -> old.then(newer)));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("member write-behind flush failed, {} members pending", pendingCount(), e);
+        }
+    }
+
+    /**
+     * 새 수정을 거부하고 남은 변경을 내보낸다. 몇 번 재시도해도 실패하면 잃어버린 회원 id 를 에러 로그로 남긴다.
+     */
+    @PreDestroy
+    public void shutdown() {
+        swapLock.writeLock().lock();
+        try {
+            closed = true; // 진행 중인 수정이 끝난 뒤에 닫힌다
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (int attempt = 1; attempt <= SHUTDOWN_FLUSH_ATTEMPTS; attempt++) {
+            try {
+                flush();
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == SHUTDOWN_FLUSH_ATTEMPTS) {
+                    log.error("member write-behind lost {} member updates on shutdown, ids={}",
+                            pendingCount(), pending.keySet(), e);
+                    return;
+                }
+                log.warn("member write-behind shutdown flush failed (attempt {}/{}), retrying",
+                        attempt, SHUTDOWN_FLUSH_ATTEMPTS, e);
+                try {
+                    Thread.sleep(SHUTDOWN_RETRY_BACKOFF_MILLIS * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt(); // 대기 없이 바로 재시도
+                }
+            }
+        }
+    }
+
+    private static final class PendingUpdate {
+        String username; // null 이면 그대로
+        Integer age; // null 이면 현재 값에 ageDelta 만 더한다
+        int ageDelta;
+        Long expectedVersion; // null 이면 flush 시점의 version 에 덮어쓴다
+
+        // flush 전이라 DB 의 version 은 그대로이므로 서로 다른 version 을 기대하는 수정은 함께 반영할 수 없다
+        void expect(Long memberId, Long version) {
+            if (version == null || Objects.equals(expectedVersion, version)) {
+                return;
+            }
+            if (expectedVersion != null) {
+                throw new OptimisticLockingFailureException("member " + memberId + " has a pending update expecting version "
+                        + expectedVersion + ", not " + version);
+            }
+            expectedVersion = version;
+        }
+
+        MemberState applyTo(MemberState current) {
+            return new MemberState(current.teamId(),
+                    username != null ? username : current.username(),
+                    (age != null ? age : current.age()) + ageDelta);
+        }
+
+        // this 다음에 newer 가 적용된 결과
+        PendingUpdate then(PendingUpdate newer) {
+            PendingUpdate merged = new PendingUpdate();
+            merged.expectedVersion = expectedVersion != null ? expectedVersion : newer.expectedVersion;
+            merged.username = newer.username != null ? newer.username : username;
+            if (newer.age != null) {
+                merged.age = newer.age;
+                merged.ageDelta = newer.ageDelta;
+            } else {
+                merged.age = age;
+                merged.ageDelta = ageDelta + newer.ageDelta;
+            }
+            return merged;
+        }
+    }
+}
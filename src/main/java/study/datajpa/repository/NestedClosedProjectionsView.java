@@ -0,0 +1,28 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+
+/**
+ * {@link NestedClosedProjections} 의 구체 클래스
+ */
+@Getter
+public final class NestedClosedProjectionsView implements NestedClosedProjections {
+
+    private final String username;
+    private final TeamInfo team;
+
+    public NestedClosedProjectionsView(String username, String teamName) {
+        this.username = username;
+        this.team = teamName != null ? new TeamInfoView(teamName) : null;
+    }
+
+    @Getter
+    private static final class TeamInfoView implements TeamInfo {
+
+        private final String name;
+
+        private TeamInfoView(String name) {
+            this.name = name;
+        }
+    }
+}
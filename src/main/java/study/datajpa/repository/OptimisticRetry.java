@@ -0,0 +1,90 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락(@Version) 충돌 시 새 트랜잭션으로 다시 실행한다.
+ * <p>
+ * 충돌한 트랜잭션의 영속성 컨텍스트는 쓸 수 없으므로 시도마다 REQUIRES_NEW 트랜잭션을 연다.
+ * 재시도 사이에는 지수 증가 상한 안에서 무작위로 기다려(full jitter) 같은 행에 몰린 쓰기가 다시 겹치지 않게 한다.
+ * 충돌 횟수, 시도 횟수, 재시도 소진은 operation 태그로 기록한다.
+ */
+@Component
+public class OptimisticRetry {
+
+    private final TransactionTemplate transaction;
+    private final MeterRegistry registry;
+    private final int maxAttempts;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager,
+                           MeterRegistry registry,
+                           @Value("${datajpa.optimistic.max-attempts:5}") int maxAttempts,
+                           @Value("${datajpa.optimistic.base-backoff:5ms}") Duration baseBackoff,
+                           @Value("${datajpa.optimistic.max-backoff:200ms}") Duration maxBackoff) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.registry = registry;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    public <T> T execute(String operation, Supplier<T> work) {
+        return execute(operation, maxAttempts, work);
+    }
+
+    public <T> T execute(String operation, int maxAttempts, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = transaction.execute(status -> work.get());
+                attempts(operation).record(attempt);
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                counter("db.optimistic.conflicts", operation).increment();
+                if (attempt >= maxAttempts) {
+                    attempts(operation).record(attempt);
+                    counter("db.optimistic.exhausted", operation).increment();
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long cap = Math.min(maxBackoffNanos, baseBackoffNanos << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(Duration.ofNanos(ThreadLocalRandom.current().nextLong(cap + 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while retrying optimistic update", e);
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return Counter.builder(name)
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private DistributionSummary attempts(String operation) {
+        return DistributionSummary.builder("db.optimistic.attempts")
+                .description("Attempts per optimistic update")
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
@@ -0,0 +1,157 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.datajpa.event.MemberBulkUpdatedEvent;
+import study.datajpa.event.MemberChangedEvent;
+import study.datajpa.event.MemberState;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * {@link CountMode} 에 따라 content 와 count 를 {@link Page} 로 조립한다.
+ * <p>
+ * CACHED count 는 조건(countFilter)과 함께 캐시하고, 회원 한 건이 바뀌면 변경 전후로 조건에 드는지가 달라진 count 만 버린다.
+ * 벌크 연산은 어떤 행이 바뀌었는지 모르므로 모두 버린다.
+ * 트랜잭션 안에서 읽은 count 는 커밋된 뒤에 공유하고, 그 트랜잭션이 조건에 드는 회원을 바꿨다면 캐시를 쓰지 않는다.
+ */
+@Component
+public class PageCounter {
+
+    private static final int MAX_CACHED_KEYS = 10_000;
+
+    private final long ttlNanos;
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+    private final AfterCommitBuffer<TxCounts> pending = new AfterCommitBuffer<>(TxCounts::new, this::share);
+
+    public PageCounter(@Value("${datajpa.paging.count-cache-ttl:30s}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * @param countKey       CACHED 모드에서 사용할 조건별 캐시 키 (예: {@code "Member.age:10"})
+     * @param countFilter    count 쿼리의 조건, 회원 상태가 이 count 에 들어가는지 판단한다
+     * @param exactCount     정확한 count 쿼리
+     * @param estimatedCount 테이블 통계 기반 추정치, 없으면 {@code null}
+     */
+    public <T> Page<T> page(List<T> content, Pageable pageable, CountMode mode, String countKey,
+                            Predicate<MemberState> countFilter, LongSupplier exactCount, LongSupplier estimatedCount) {
+        LongSupplier cachedCount = () -> cached(countKey, countFilter, exactCount);
+        return switch (mode) {
+            case EXACT -> new PageImpl<>(content, pageable, exactCount.getAsLong());
+            case SKIP_WHEN_SHORT -> PageableExecutionUtils.getPage(content, pageable, exactCount);
+            case CACHED -> PageableExecutionUtils.getPage(content, pageable, cachedCount);
+            case ESTIMATED -> PageableExecutionUtils.getPage(content, pageable,
+                    estimatedCount != null ? estimatedCount : cachedCount);
+        };
+    }
+
+    public void evictAll() {
+        counts.clear();
+    }
+
+    // 커밋 전 flush 마다 불린다, 이 트랜잭션이 읽어 둔 count 중 영향받는 것을 버리고 이후 조회가 캐시를 건너뛰게 한다
+    @EventListener
+    public void onMemberFlushed(MemberChangedEvent event) {
+        pending.record(tx -> tx.changed(event));
+    }
+
+    @EventListener
+    public void onBulkFlushed(MemberBulkUpdatedEvent event) {
+        pending.record(TxCounts::bulkUpdated);
+    }
+
+    // 롤백된 변경으로는 버리지 않는다
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        counts.values().removeIf(count -> affects(count.filter(), event));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkUpdated(MemberBulkUpdatedEvent event) {
+        evictAll();
+    }
+
+    private long cached(String countKey, Predicate<MemberState> countFilter, LongSupplier exactCount) {
+        TxCounts tx = pending.current();
+        if (tx != null && tx.changes(countFilter)) {
+            return exactCount.getAsLong(); // 커밋 전 변경이 섞인 count 는 캐시하지 않는다
+        }
+        long now = System.nanoTime();
+        CachedCount cached = tx != null ? tx.counts.get(countKey) : null;
+        if (cached == null) {
+            cached = counts.get(countKey);
+        }
+        if (cached != null && now - cached.loadedAt() < ttlNanos) {
+            return cached.value();
+        }
+        CachedCount loaded = new CachedCount(exactCount.getAsLong(), now, countFilter);
+        pending.record(pendingCounts -> pendingCounts.counts.put(countKey, loaded));
+        return loaded.value();
+    }
+
+    private void share(TxCounts tx) {
+        if (counts.size() + tx.counts.size() > MAX_CACHED_KEYS) {
+            counts.clear();
+        }
+        counts.putAll(tx.counts);
+    }
+
+    // 변경 전후로 조건에 드는지가 달라졌으면 count 가 바뀐다
+    private static boolean affects(Predicate<MemberState> filter, MemberChangedEvent event) {
+        return matches(filter, event.before()) != matches(filter, event.after());
+    }
+
+    private static boolean matches(Predicate<MemberState> filter, MemberState state) {
+        return state != null && filter.test(state);
+    }
+
+    private record CachedCount(long value, long loadedAt, Predicate<MemberState> filter) {
+    }
+
+    // 한 트랜잭션에서 읽은 count 와 그 트랜잭션이 flush 한 회원 변경
+    private static final class TxCounts {
+
+        // 이보다 많이 바뀌면 벌크 연산처럼 다룬다
+        private static final int MAX_TRACKED_CHANGES = 1_000;
+
+        private final Map<String, CachedCount> counts = new HashMap<>();
+        private final List<MemberChangedEvent> changes = new ArrayList<>();
+        private boolean bulkUpdated;
+
+        void changed(MemberChangedEvent event) {
+            if (bulkUpdated) {
+                return;
+            }
+            if (changes.size() >= MAX_TRACKED_CHANGES) {
+                bulkUpdated();
+                return;
+            }
+            changes.add(event);
+            counts.values().removeIf(count -> affects(count.filter(), event));
+        }
+
+        void bulkUpdated() {
+            bulkUpdated = true;
+            changes.clear();
+            counts.clear();
+        }
+
+        boolean changes(Predicate<MemberState> filter) {
+            return bulkUpdated || changes.stream().anyMatch(event -> affects(filter, event));
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package study.datajpa.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import study.datajpa.entity.Team;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface TeamRepository extends JpaRepository<Team, Long> {
 
+    @Query("select t from Team t where t.id in :ids")
+    List<Team> findByIds(@Param("ids") Collection<Long> ids); // BatchLoader 용
 }
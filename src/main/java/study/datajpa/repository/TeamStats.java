@@ -0,0 +1,14 @@
+package study.datajpa.repository;
+
+public record TeamStats(long memberCount, long ageSum) {
+
+    public static final TeamStats EMPTY = new TeamStats(0, 0);
+
+    public double averageAge() {
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+
+    TeamStats plus(TeamStats other) {
+        return new TeamStats(memberCount + other.memberCount, ageSum + other.ageSum);
+    }
+}
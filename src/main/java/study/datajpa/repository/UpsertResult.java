@@ -0,0 +1,8 @@
+package study.datajpa.repository;
+
+public record UpsertResult(long inserted, long updated) {
+
+    public UpsertResult plus(UpsertResult other) {
+        return new UpsertResult(inserted + other.inserted, updated + other.updated);
+    }
+}
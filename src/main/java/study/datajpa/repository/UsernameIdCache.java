@@ -0,0 +1,93 @@
+package study.datajpa.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.event.MemberBulkUpdatedEvent;
+import study.datajpa.event.MemberChangedEvent;
+import study.datajpa.event.MemberState;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * username -> 회원 id 집합 캐시 (크기 제한)
+ * <p>
+ * 회원 변경 이벤트로 바뀐 username 을 즉시, 그리고 커밋/롤백 후에 한 번 더 무효화한다.
+ * 커밋 전에 다른 트랜잭션이 옛 값을 다시 읽어 채워 넣는 경우를 막기 위해서다.
+ * 벌크 연산은 어떤 username 이 영향받았는지 모르므로 전체를 비운다. 커밋된 데이터만 반영한다.
+ */
+@Component
+public class UsernameIdCache {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, IdSet> cache;
+
+    public UsernameIdCache(JdbcTemplate jdbcTemplate, MeterRegistry registry,
+                           @Value("${datajpa.username-cache.max-size:10000}") long maxSize,
+                           @Value("${datajpa.username-cache.ttl:10m}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "member.username.ids");
+    }
+
+    public IdSet findIds(String username) {
+        if (username == null) {
+            return IdSet.EMPTY;
+        }
+        return cache.get(username, this::load);
+    }
+
+    private IdSet load(String username) {
+        List<Long> ids = jdbcTemplate.queryForList("select member_id from member where username = ?", Long.class, username);
+        return IdSet.of(ids.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        Set<String> usernames = new HashSet<>();
+        MemberState before = event.before();
+        MemberState after = event.after();
+        if (before != null && after != null && before.username() != null && before.username().equals(after.username())) {
+            return; // 나이/팀만 바뀌었다
+        }
+        if (before != null && before.username() != null) {
+            usernames.add(before.username());
+        }
+        if (after != null && after.username() != null) {
+            usernames.add(after.username());
+        }
+        evict(usernames);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkUpdated(MemberBulkUpdatedEvent event) {
+        cache.invalidateAll();
+    }
+
+    private void evict(Set<String> usernames) {
+        cache.invalidateAll(usernames);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidateAll(usernames);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package study.datajpa.repository;
+
+/**
+ * {@link UsernameOnly} 의 구체 클래스, Open Projection 의 SpEL 식을 자바 코드로 옮겨 행마다 SpEL 을 평가하지 않는다.
+ */
+public final class UsernameOnlyView implements UsernameOnly {
+
+    private final String username;
+
+    public UsernameOnlyView(String username, int age) {
+        this.username = username + "" + age; // #{target.username + '' + target.age}
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+}
@@ -0,0 +1,71 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 쿼리 캐시는 커밋된 결과만 담으므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+@SpringBootTest
+class CacheRegionMetricsTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void queryCacheHitThenMissAfterBulkUpdate() {
+        // given
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        Long id = memberRepository.save(new Member("cached", 10)).getId();
+        memberRepository.findByUsername("cached"); // member-query 리전이 이때 만들어진다
+
+        // when 같은 조건으로 다시 조회하면 쿼리 캐시에서 읽고 SQL 을 실행하지 않는다
+        long queryHits = statistics.getQueryCacheHitCount();
+        long statements = statistics.getPrepareStatementCount();
+        memberRepository.findByUsername("cached");
+
+        // then
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(queryHits + 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        FunctionCounter regionHits = meterRegistry.find("cache.region.gets")
+                .tags("region", "member-query", "result", "hit")
+                .functionCounter();
+        assertThat(regionHits).isNotNull(); // 나중에 만들어진 리전도 미터가 있다
+        assertThat(regionHits.count()).isGreaterThanOrEqualTo(1);
+
+        // when 벌크 수정은 member 테이블의 쿼리 캐시를 무효화한다
+        long queryMisses = statistics.getQueryCacheMissCount();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> memberRepository.bulkAgePlus(0));
+        Member result = memberRepository.findByUsername("cached").getFirst();
+
+        // then
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(queryMisses + 1);
+        assertThat(result.getId()).isEqualTo(id);
+        assertThat(result.getAge()).isEqualTo(11);
+    }
+}
@@ -0,0 +1,99 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 허가를 잃어버리면 애플리케이션 전체가 멈추므로 반납 경로를 하나씩 확인한다
+class ConnectionLimitingDataSourceTest {
+
+    StubDataSource target = new StubDataSource();
+    ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, Duration.ofMillis(50));
+
+    @Test
+    void releaseOnClose() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.close();
+
+        dataSource.getConnection().close();
+    }
+
+    @Test
+    void timeoutWhenExhausted() throws SQLException {
+        Connection connection = dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection)
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("connection permit not available");
+
+        connection.close();
+        dataSource.getConnection().close();
+    }
+
+    @Test
+    void releaseOnFailedGetConnection() throws SQLException {
+        target.failures = 1;
+
+        assertThatThrownBy(dataSource::getConnection).hasMessage("stub failure");
+
+        dataSource.getConnection().close();
+    }
+
+    @Test
+    void releaseWhenCloseFails() throws SQLException {
+        target.failOnClose = true;
+        Connection connection = dataSource.getConnection();
+
+        assertThatThrownBy(connection::close).hasMessage("close failed");
+
+        target.failOnClose = false;
+        dataSource.getConnection().close();
+    }
+
+    @Test
+    void releaseOnlyOnceWhenClosedTwice() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        // 두 번 반납됐다면 두 번째 커넥션도 바로 얻어진다
+        Connection first = dataSource.getConnection();
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLException.class);
+        first.close();
+        assertThat(dataSource.getWaitingThreads()).isZero();
+    }
+
+    private static final class StubDataSource extends AbstractDataSource {
+
+        int failures;
+        boolean failOnClose;
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (failures > 0) {
+                failures--;
+                throw new SQLException("stub failure");
+            }
+            boolean failClose = failOnClose;
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("close") && failClose) {
+                            throw new SQLException("close failed");
+                        }
+                        return null;
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package study.datajpa.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class NPlusOneDetectorTest {
+
+    @Autowired
+    NPlusOneDetector detector;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    void batchFetchTeam() {
+        // given
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+
+        // when
+        try (NPlusOneDetector.Scope scope = detector.open()) {
+            List<Member> members = em.createQuery("select m from Member m", Member.class)
+                    .getResultList();
+            for (Member member : members) {
+                member.getTeam().getName();
+            }
+
+            // then
+            // default_batch_fetch_size 로 팀 프록시 5개가 한 번의 in 쿼리로 초기화된다
+            assertThat(scope.repeatedShapes()).isEmpty();
+            assertThat(scope.getStatements()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void detectRepeatedShape() {
+        // given
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("member" + i, i));
+        }
+        em.flush();
+        em.clear();
+
+        // when
+        try (NPlusOneDetector.Scope scope = detector.open()) {
+            for (int i = 0; i < 3; i++) {
+                em.createQuery("select m from Member m where m.username = :username", Member.class)
+                        .setParameter("username", "member" + i)
+                        .getResultList();
+            }
+
+            // then
+            assertThat(scope.repeatedShapes()).hasSize(1);
+            assertThat(scope.repeatedShapes().values()).containsExactly(3);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 설정이 달라 컨텍스트를 따로 띄우므로 DB 도 따로 쓴다, 같은 파일 DB 면 ddl-auto: create 가 다른 컨텍스트의 테이블과 시퀀스를 다시 만든다
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-routing;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "datajpa.datasource.replicas[0].url=jdbc:h2:mem:replica-routing;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "datajpa.datasource.replicas[0].username=sa",
+        "datajpa.datasource.check-interval=1h"
+})
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void routeReadOnlyToReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        String readOnlyTarget = readOnly.execute(status -> routingDataSource.currentTarget());
+        String readWriteTarget = readWrite.execute(status -> routingDataSource.currentTarget());
+
+        assertThat(readOnlyTarget).isEqualTo("replica-0");
+        assertThat(readWriteTarget).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void fallbackToPrimary() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        routingDataSource.markUnavailable("replica-0");
+        try {
+            String target = readOnly.execute(status -> routingDataSource.currentTarget());
+            assertThat(target).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+        } finally {
+            routingDataSource.markAvailable("replica-0");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class StatementMetricsTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    SqlShapeEndpoint sqlShapeEndpoint;
+
+    @Test
+    void recordPerRepositoryMethod() {
+        // given
+        memberRepository.save(new Member("AAA", 10));
+
+        // when
+        memberRepository.findUser("AAA", 10);
+
+        // then
+        Timer timer = meterRegistry.find("db.statement")
+                .tags("repository.method", "MemberRepository.findUser", "kind", "select")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.find("db.statement.rows")
+                .tags("repository.method", "MemberRepository.findUser")
+                .summary()
+                .totalAmount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void inClausePadding() {
+        // given
+        sqlShapeEndpoint.reset();
+
+        // when 3개와 4개 모두 4개로 채워져 같은 SQL 이 된다
+        memberRepository.findByNames(List.of("a", "b", "c"));
+        memberRepository.findByNames(List.of("a", "b", "c", "d"));
+
+        // then
+        SqlShapeEndpoint.ShapeView shape = sqlShapeEndpoint.shapes().stream()
+                .filter(view -> view.method().equals("MemberRepository.findByNames"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(shape.executions()).isEqualTo(2);
+        assertThat(shape.variants()).isEqualTo(1);
+        assertThat(shape.hitRatio()).isEqualTo(0.5);
+    }
+}
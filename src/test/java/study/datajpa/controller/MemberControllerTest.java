@@ -0,0 +1,113 @@
+package study.datajpa.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberAsyncRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 요청 스레드와 로더 스레드가 따로 조회하므로 테스트 트랜잭션 없이 커밋된 데이터로 검증한다
+// 동시에 보낸 요청이 한 창에 모이도록 창을 넓히고, 설정이 달라 컨텍스트를 따로 띄우므로 DB 도 따로 쓴다
+@SpringBootTest(properties = {
+        "datajpa.loader.window=200ms",
+        "spring.datasource.url=jdbc:h2:mem:member-controller;MODE=MySQL;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberAsyncRepository memberAsyncRepository;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void findMember2UsesBatchLoader() throws Exception {
+        // given
+        Member member1 = memberRepository.save(new Member("member1", 10));
+        Member member2 = memberRepository.save(new Member("member2", 20));
+        QueryStatistics findByIds = emf.unwrap(SessionFactory.class).getStatistics()
+                .getQueryStatistics("select m from Member m where m.id in :ids");
+        long executions = findByIds.getExecutionCount();
+
+        // when @PathVariable("id") Member 로 같은 회원과 다른 회원을 동시에 여러 번 조회
+        CountDownLatch start = new CountDownLatch(1);
+        List<Long> ids = IntStream.range(0, 8)
+                .mapToObj(i -> i % 4 == 3 ? member2.getId() : member1.getId())
+                .toList();
+        List<String> usernames;
+        try (ExecutorService clients = Executors.newFixedThreadPool(ids.size())) {
+            List<CompletableFuture<String>> responses = ids.stream()
+                    .map(id -> CompletableFuture.supplyAsync(() -> {
+                        try {
+                            start.await();
+                            return mockMvc.perform(get("/members2/{id}", id))
+                                    .andReturn().getResponse().getContentAsString();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }, clients))
+                    .toList();
+            start.countDown();
+            usernames = responses.stream().map(CompletableFuture::join).toList();
+        }
+
+        // then 도메인 클래스 컨버터(findById) 대신 BatchLoader 를 거쳐 in 쿼리 한 번으로 조회한다
+        assertThat(usernames).containsExactlyElementsOf(ids.stream()
+                .map(id -> id.equals(member1.getId()) ? "member1" : "member2")
+                .toList());
+        assertThat(findByIds.getExecutionCount()).isEqualTo(executions + 1);
+    }
+
+    @Test
+    @DirtiesContext
+    void teamSummaryRejected() throws Exception {
+        // given 닫힌 풀은 조회를 거부한다
+        memberAsyncRepository.close();
+
+        // when
+        MvcResult result = mockMvc.perform(get("/teams/{teamId}/summary", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+}
@@ -5,12 +5,23 @@ import jakarta.persistence.PersistenceContext;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.repository.MemberRepository;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.List;
 
-@SpringBootTest
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 감사 시각을 직접 움직이는 시계로 바꿔 끼우므로 컨텍스트를 따로 띄우고 DB 도 따로 쓴다
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:member-entity;MODE=MySQL;DB_CLOSE_DELAY=-1")
 @Transactional
 class MemberTest {
 
@@ -20,6 +31,9 @@ class MemberTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    TestClock clock;
+
     @Test
     void testEntity() {
         Team teamA = new Team("teamA");
@@ -57,7 +71,7 @@ class MemberTest {
         Member member = new Member("member1");
         memberRepository.save(member); // @PrePersist 발생
 
-        Thread.sleep(100);
+        clock.advance(Duration.ofMillis(100));
         member.setUsername("member2");
 
         em.flush(); // @PreUpdate 발생
@@ -72,4 +86,61 @@ class MemberTest {
         System.out.println("findMember.getCreatedBy() = " + findMember.getCreatedBy());
         System.out.println("findMember.getLastModifiedBy() = " + findMember.getLastModifiedBy());
     }
+
+    @Test
+    void auditStampPerFlush() {
+        // given
+        Member member1 = memberRepository.save(new Member("member1"));
+        clock.advance(Duration.ofSeconds(1));
+        Member member2 = memberRepository.save(new Member("member2"));
+
+        // then flush 사이에는 시계가 움직여도 같은 시각, 등록자는 엔티티마다 AuditorAware 에서 구한다
+        assertThat(member1.getCreatedDate()).isNotNull().isEqualTo(member2.getCreatedDate());
+        assertThat(member1.getCreatedBy()).isNotNull().isNotEqualTo(member2.getCreatedBy());
+
+        // when
+        clock.advance(Duration.ofSeconds(1));
+        member1.setUsername("member1-1");
+        member2.setUsername("member2-1");
+        em.flush();
+
+        // then flush 가 시작되면 시각을 새로 잡는다
+        assertThat(member1.getLastModifiedDate()).isEqualTo(member1.getCreatedDate().plusSeconds(2))
+                .isEqualTo(member2.getLastModifiedDate());
+    }
+
+    @TestConfiguration
+    static class ClockConfig {
+
+        @Bean
+        @Primary
+        TestClock testClock() {
+            return new TestClock();
+        }
+    }
+
+    // 테스트에서 직접 움직이는 시계
+    static final class TestClock extends Clock {
+
+        private volatile Instant instant = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
 }
\ No newline at end of file
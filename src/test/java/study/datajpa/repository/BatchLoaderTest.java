@@ -0,0 +1,74 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 로더는 별도 스레드/트랜잭션에서 조회하므로 테스트 트랜잭션 없이 커밋된 데이터로 검증한다
+@SpringBootTest
+class BatchLoaderTest {
+
+    @Autowired
+    BatchLoader<Long, Member> memberLoader;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void memberLoader() {
+        // given
+        memberRepository.bulkInsert(IntStream.range(0, 10).mapToObj(i -> new Member("member" + i, i)));
+        List<Member> members = memberRepository.findAll();
+
+        // when
+        List<CompletableFuture<Optional<Member>>> futures = members.stream()
+                .map(member -> memberLoader.load(member.getId()))
+                .toList();
+        Optional<Member> missing = memberLoader.find(-1L);
+
+        // then
+        assertThat(futures).extracting(future -> future.join().orElseThrow().getUsername())
+                .containsExactlyElementsOf(members.stream().map(Member::getUsername).toList());
+        assertThat(missing).isEmpty();
+    }
+
+    @Test
+    void coalesce() {
+        List<Collection<Long>> batches = new CopyOnWriteArrayList<>();
+        Function<Collection<Long>, Map<Long, String>> batchFunction = ids -> {
+            batches.add(List.copyOf(ids));
+            return ids.stream().collect(Collectors.toMap(Function.identity(), id -> "v" + id));
+        };
+
+        try (BatchLoader<Long, String> loader = new BatchLoader<>("test", batchFunction, Duration.ofMillis(50), 4)) {
+            List<CompletableFuture<Optional<String>>> futures = LongStream.of(1, 2, 2, 3, 4, 5)
+                    .mapToObj(loader::load)
+                    .toList();
+
+            assertThat(futures).extracting(future -> future.join().orElseThrow())
+                    .containsExactly("v1", "v2", "v2", "v3", "v4", "v5");
+        }
+        assertThat(batches).containsExactly(List.of(1L, 2L, 3L, 4L), List.of(5L)); // 중복 키는 한 번만, maxBatchSize 에서 바로 조회
+    }
+}
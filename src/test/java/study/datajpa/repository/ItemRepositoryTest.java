@@ -3,8 +3,14 @@ package study.datajpa.repository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Item;
 
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -19,4 +25,36 @@ class ItemRepositoryTest {
         itemRepository.save(item);
     }
 
+    @Test
+    @Transactional
+    void upsertAll() {
+        // given
+        itemRepository.save(new Item("item0"));
+        long before = itemRepository.count();
+        List<Item> items = IntStream.range(0, 2500)
+                .mapToObj(i -> new Item("item" + i))
+                .toList();
+
+        // when
+        UpsertResult result = itemRepository.upsertAll(items);
+
+        // then
+        assertThat(result).isEqualTo(new UpsertResult(2499, 1));
+        assertThat(itemRepository.count()).isEqualTo(before + 2499);
+    }
+
+    @Test
+    @Transactional
+    void upsertAllDuplicateIds() {
+        // given
+        itemRepository.save(new Item("dup0"));
+
+        // when 같은 id 가 여러 번 들어와도 한 번만 센다
+        UpsertResult result = itemRepository.upsertAll(List.of(
+                new Item("dup0"), new Item("dup1"), new Item("dup0"), new Item("dup1"), new Item("dup2")));
+
+        // then
+        assertThat(result).isEqualTo(new UpsertResult(2, 1));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 작업 스레드는 자기 트랜잭션에서 조회하므로 테스트 트랜잭션 없이 커밋된 데이터로 검증한다
+@SpringBootTest
+class MemberAsyncRepositoryTest {
+
+    @Autowired
+    MemberAsyncRepository memberAsyncRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void parallelQueries() {
+        // given
+        Long teamId = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = teamRepository.save(new Team("teamA"));
+            memberRepository.save(new Member("member1", 10, team));
+            memberRepository.save(new Member("member2", 20, team));
+            return team.getId();
+        });
+
+        // when
+        CompletableFuture<Optional<Team>> team = memberAsyncRepository.findTeam(teamId);
+        CompletableFuture<List<MemberDto>> members = memberAsyncRepository.findMemberDtoByTeamId(teamId);
+        CompletableFuture<Long> count = memberAsyncRepository.countMembers();
+        CompletableFuture.allOf(team, members, count).join();
+
+        // then
+        assertThat(team.join()).get().extracting(Team::getName).isEqualTo("teamA");
+        assertThat(members.join()).extracting(MemberDto::getUsername).containsExactlyInAnyOrder("member1", "member2");
+        assertThat(members.join()).extracting(MemberDto::getTeamName).containsOnly("teamA");
+        assertThat(count.join()).isGreaterThanOrEqualTo(2);
+    }
+}
@@ -0,0 +1,75 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 청크마다 별도 트랜잭션으로 커밋하므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+@SpringBootTest
+class MemberBulkUpdaterTest {
+
+    @Autowired
+    MemberBulkUpdater memberBulkUpdater;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void ageUpdate() {
+        // given
+        memberRepository.bulkInsert(IntStream.range(0, 2500)
+                .mapToObj(i -> new Member("member" + i, i % 50)));
+        Member member30 = memberRepository.findByUsername("member30").getFirst(); // 2차 캐시에 올라간다
+
+        // when
+        BulkUpdateJob job = memberBulkUpdater.ageUpdate(20).getCompletion().join();
+
+        // then
+        assertThat(job.isCompleted()).isTrue();
+        assertThat(job.getUpdatedRows().get()).isEqualTo(1500);
+        assertThat(memberRepository.findById(member30.getId()).get().getAge()).isEqualTo(31);
+        List<Member> member10 = memberRepository.findByUsername("member10");
+        assertThat(member10.getFirst().getAge()).isEqualTo(10);
+    }
+
+    @Test
+    void failedChunkCompletesExceptionally() {
+        // given 나이를 올리면 int 범위를 넘는 회원이 있는 청크는 실패한다
+        memberRepository.bulkInsert(IntStream.range(0, 2500)
+                .mapToObj(i -> new Member("member" + i, i == 1200 ? Integer.MAX_VALUE : 30)));
+
+        // when
+        BulkUpdateJob job = memberBulkUpdater.ageUpdate(20);
+
+        // then
+        assertThatThrownBy(() -> job.getCompletion().join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(job.isCompleted()).isFalse();
+        assertThat(job.getFailedChunks()).hasSize(1);
+        assertThat(job.getUpdatedRows().get()).isEqualTo(1500);
+
+        // 원인을 고치고 남은 청크만 다시 실행한다
+        Member overflow = memberRepository.findByUsername("member1200").getFirst();
+        overflow.setAge(30);
+        memberRepository.save(overflow);
+        BulkUpdateJob resumed = memberBulkUpdater.resume(job.getId()).getCompletion().join();
+        assertThat(resumed.isCompleted()).isTrue();
+        assertThat(resumed.getFailedChunks()).isEmpty();
+        assertThat(resumed.getUpdatedRows().get()).isEqualTo(2500);
+    }
+}
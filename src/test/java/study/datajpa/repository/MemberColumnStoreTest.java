@@ -0,0 +1,139 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// 커밋 후에 컬럼에 반영되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+// 벌크 연산 뒤 재적재는 @Async 실행기에서 돌므로 결과를 기다려서 검증한다
+@SpringBootTest
+class MemberColumnStoreTest {
+
+    @Autowired
+    MemberColumnStore memberColumnStore;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        // 이전 테스트 정리(deleteAllInBatch) 뒤의 재적재가 끝나 테이블과 맞아야 증감을 비교할 수 있다
+        await().untilAsserted(() -> assertThat((long) memberColumnStore.count()).isEqualTo(memberRepository.count()));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void incremental() {
+        int rows = memberColumnStore.count();
+        long twenties = memberColumnStore.countByAgeBetween(20, 29);
+
+        // 추가
+        Team[] saved = tx.execute(status -> {
+            Team teamA = teamRepository.save(new Team("teamA"));
+            Team teamB = teamRepository.save(new Team("teamB"));
+            memberRepository.save(new Member("column1", 21, teamA));
+            memberRepository.save(new Member("column2", 25, teamA));
+            memberRepository.save(new Member("column3", 37, teamB));
+            return new Team[]{teamA, teamB};
+        });
+        Long teamA = saved[0].getId();
+        Long teamB = saved[1].getId();
+
+        assertThat(memberColumnStore.count()).isEqualTo(rows + 3);
+        assertThat(memberColumnStore.countByAgeBetween(20, 29)).isEqualTo(twenties + 2);
+        assertThat(memberColumnStore.countByUsername("column1")).isEqualTo(1);
+        assertThat(memberColumnStore.teamBreakdown(0, 100).get(teamA)).isEqualTo(new TeamStats(2, 46));
+        assertThat(memberColumnStore.teamBreakdown(30, 39).get(teamB)).isEqualTo(new TeamStats(1, 37));
+        assertThat(memberColumnStore.teamBreakdown(30, 39)).doesNotContainKey(teamA);
+
+        // 수정: 팀과 나이 변경
+        tx.executeWithoutResult(status -> {
+            Member member = memberRepository.findByUsername("column3").getFirst();
+            member.changeTeam(teamRepository.findById(teamA).get());
+            member.setAge(23);
+        });
+
+        assertThat(memberColumnStore.count()).isEqualTo(rows + 3);
+        assertThat(memberColumnStore.teamBreakdown(0, 100).get(teamA)).isEqualTo(new TeamStats(3, 69));
+        assertThat(memberColumnStore.teamBreakdown(0, 100)).doesNotContainKey(teamB);
+
+        // 삭제
+        tx.executeWithoutResult(status -> memberRepository.delete(memberRepository.findByUsername("column1").getFirst()));
+
+        assertThat(memberColumnStore.count()).isEqualTo(rows + 2);
+        assertThat(memberColumnStore.countByUsername("column1")).isZero();
+        assertThat(memberColumnStore.teamBreakdown(0, 100).get(teamA)).isEqualTo(new TeamStats(2, 48));
+
+        // 롤백된 변경은 반영하지 않는다
+        tx.executeWithoutResult(status -> {
+            memberRepository.save(new Member("column4", 40));
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberColumnStore.count()).isEqualTo(rows + 2);
+    }
+
+    @Test
+    void ageHistogram() {
+        tx.executeWithoutResult(status -> {
+            memberRepository.save(new Member("column1", 1001));
+            memberRepository.save(new Member("column2", 1009));
+            memberRepository.save(new Member("column3", 1010));
+        });
+
+        assertThat(memberColumnStore.ageHistogram(10))
+                .containsEntry(1000, 2L)
+                .containsEntry(1010, 1L);
+    }
+
+    @Test
+    void ageHistogramWithOutlier() {
+        tx.executeWithoutResult(status -> {
+            memberRepository.save(new Member("column1", 10));
+            memberRepository.save(new Member("column2", 2_000_000_000));
+        });
+
+        // 구간이 20억 개여도 배열을 만들지 않는다
+        assertThat(memberColumnStore.ageHistogram(1))
+                .containsEntry(10, 1L)
+                .containsEntry(2_000_000_000, 1L);
+    }
+
+    @Test
+    void reloadAfterBulkUpdate() {
+        Long teamA = tx.execute(status -> {
+            Team team = teamRepository.save(new Team("teamA"));
+            memberRepository.save(new Member("column1", 10, team));
+            memberRepository.save(new Member("column2", 20, team));
+            return team.getId();
+        });
+
+        // 엔티티 콜백 없이 나이가 바뀌고, 커밋 후 비동기로 다시 적재한다
+        tx.executeWithoutResult(status -> memberRepository.bulkAgePlus(0));
+
+        await().untilAsserted(() -> assertThat(memberColumnStore.teamBreakdown(0, 100).get(teamA)).isEqualTo(new TeamStats(2, 32)));
+    }
+}
@@ -0,0 +1,111 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberQueryRepositoryTest {
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    void streamAllMembers() {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 10, teamA));
+        em.persist(new Member("m2", 20, teamA));
+
+        em.flush();
+        em.clear();
+
+        // when
+        try (Stream<Member> stream = memberQueryRepository.streamAllMembers()) {
+            List<Member> result = stream.toList();
+
+            // then
+            // 읽은 엔티티는 영속성 컨텍스트에 남지 않는다
+            assertThat(result).hasSize(2);
+            assertThat(result).noneMatch(em::contains);
+        }
+    }
+
+    @Test
+    void streamMemberDto() {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 10, teamA));
+        em.persist(new Member("m2", 20));
+
+        em.flush();
+        em.clear();
+
+        // when
+        try (Stream<MemberDto> stream = memberQueryRepository.streamMemberDto()) {
+            List<MemberDto> result = stream.toList();
+
+            // then
+            assertThat(result).extracting("username").containsExactlyInAnyOrder("m1", "m2");
+            assertThat(result).extracting("teamName").containsExactlyInAnyOrder("teamA", null);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void streamRequiresTransaction() {
+        // 트랜잭션 없이 열면 메서드가 끝날 때 커넥션이 닫혀 스트림을 읽을 수 없으므로 호출 시점에 막는다
+        assertThatThrownBy(() -> memberQueryRepository.streamMemberDto())
+                .isInstanceOf(IllegalTransactionStateException.class);
+        assertThatThrownBy(() -> memberQueryRepository.streamAllMembers())
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    @Test
+    void findMemberDtoPage() {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 10, teamA));
+        em.persist(new Member("m2", 20, teamA));
+        em.persist(new Member("m3", 30));
+
+        em.flush();
+        em.clear();
+
+        // when
+        Page<MemberDto> page = memberQueryRepository.findMemberDtoPage(
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "username")));
+
+        // then
+        // 팀 이름까지 한 번의 쿼리로 채워지고, 엔티티는 영속성 컨텍스트에 올라가지 않는다
+        assertThat(page.getContent()).extracting("username").containsExactly("m1", "m2");
+        assertThat(page.getContent()).extracting("teamName").containsExactly("teamA", "teamA");
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+}
@@ -1,12 +1,16 @@
 package study.datajpa.repository;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
@@ -15,6 +19,7 @@ import study.datajpa.entity.Team;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -28,6 +33,12 @@ class MemberRepositoryTest {
     @Autowired
     TeamRepository teamRepository;
 
+    @Autowired
+    PageCounter pageCounter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @PersistenceContext
     EntityManager em;
 
@@ -242,6 +253,187 @@ class MemberRepositoryTest {
         assertThat(page.hasNext()).isTrue();
     }
 
+    @Test
+    void pagingCountMode() {
+        // given
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 10));
+        memberRepository.save(new Member("member3", 10));
+        memberRepository.save(new Member("member4", 10));
+        memberRepository.save(new Member("member5", 10));
+
+        // when
+        // 첫 페이지가 pageSize 보다 작으면 count 쿼리 생략
+        Page<Member> shortPage = memberRepository.findPageByAge(10, PageRequest.of(0, 10), CountMode.SKIP_WHEN_SHORT);
+        Page<Member> page = memberRepository.findPageByAge(10,
+                PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username")), CountMode.EXACT);
+
+        // then
+        assertThat(shortPage.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).extracting("username").containsExactly("member5", "member4", "member3");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getTotalPages()).isEqualTo(2);
+    }
+
+    @Test
+    void pagingCountModeSkipsCountQuery() {
+        // given
+        // 커밋 전 자기 변경이 섞인 count 는 캐시하지 않으므로 커밋해 둔다
+        for (int i = 1; i <= 5; i++) {
+            memberRepository.save(new Member("member" + i, 77));
+        }
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        pageCounter.evictAll();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        try {
+            assertCountModes(statistics);
+        } finally {
+            memberRepository.deleteAllInBatch(memberRepository.findPageByAge(77, PageRequest.of(0, 10), CountMode.EXACT)
+                    .getContent());
+        }
+    }
+
+    private void assertCountModes(Statistics statistics) {
+        // SKIP_WHEN_SHORT: content 쿼리만 실행
+        long before = statistics.getPrepareStatementCount();
+        Page<Member> shortPage = memberRepository.findPageByAge(77, PageRequest.of(0, 10), CountMode.SKIP_WHEN_SHORT);
+        assertThat(shortPage.getTotalElements()).isEqualTo(5);
+        assertThat(statistics.getPrepareStatementCount() - before).isEqualTo(1);
+
+        // CACHED: 처음에는 count 쿼리를 실행하고 다음부터는 캐시 사용
+        before = statistics.getPrepareStatementCount();
+        Page<Member> first = memberRepository.findPageByAge(77, PageRequest.of(0, 2), CountMode.CACHED);
+        assertThat(statistics.getPrepareStatementCount() - before).isEqualTo(2);
+
+        before = statistics.getPrepareStatementCount();
+        Page<Member> second = memberRepository.findPageByAge(77, PageRequest.of(1, 2), CountMode.CACHED);
+        assertThat(statistics.getPrepareStatementCount() - before).isEqualTo(1);
+        assertThat(first.getTotalElements()).isEqualTo(5);
+        assertThat(second.getTotalElements()).isEqualTo(5);
+
+        // ESTIMATED: count 쿼리 대신 테이블 통계를 읽는다
+        String countQuery = "select count(m) from Member m";
+        long counts = statistics.getQueryStatistics(countQuery).getExecutionCount();
+        Page<Member> estimated = memberRepository.findMemberPage(PageRequest.of(0, 1), CountMode.ESTIMATED);
+        assertThat(estimated.getContent()).hasSize(1);
+        assertThat(estimated.getTotalElements()).isGreaterThanOrEqualTo(1);
+        assertThat(statistics.getQueryStatistics(countQuery).getExecutionCount()).isEqualTo(counts);
+    }
+
+    @Test
+    void pagingCountCacheEvictsOnlyAffectedCounts() {
+        // given
+        Member member = memberRepository.save(new Member("member1", 79));
+        Member other = memberRepository.save(new Member("member2", 80));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        pageCounter.evictAll();
+
+        try {
+            assertThat(memberRepository.findByAge(79, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(1);
+            assertThat(memberRepository.findByAge(80, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(1);
+
+            // when 79 -> 81 로 바뀌면 79 의 count 만 버린다
+            TestTransaction.start();
+            memberRepository.findById(member.getId()).orElseThrow().setAge(81);
+            TestTransaction.flagForCommit();
+            TestTransaction.end();
+
+            // then
+            Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+            String countQuery = "select count(m) from Member m where m.age = :age";
+            long counts = statistics.getQueryStatistics(countQuery).getExecutionCount();
+            assertThat(memberRepository.findByAge(80, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(1);
+            assertThat(statistics.getQueryStatistics(countQuery).getExecutionCount()).isEqualTo(counts);
+            assertThat(memberRepository.findByAge(79, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(0);
+        } finally {
+            memberRepository.deleteAllByIdInBatch(List.of(member.getId(), other.getId()));
+        }
+    }
+
+    @Test
+    void pagingCountNotCachedWithUncommittedChanges() {
+        // given
+        memberRepository.save(new Member("member1", 82));
+        memberRepository.save(new Member("member2", 82));
+        pageCounter.evictAll();
+
+        // when 커밋 전 변경이 섞인 count 는 이 트랜잭션에서도 매번 다시 센다
+        assertThat(memberRepository.findByAge(82, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(2);
+        memberRepository.save(new Member("member3", 82));
+        assertThat(memberRepository.findByAge(82, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(3);
+        TestTransaction.end(); // 롤백
+
+        // then 롤백된 count 는 공유되지 않는다
+        assertThat(memberRepository.findByAge(82, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(0);
+    }
+
+    @Test
+    void pagingCountCacheEvictedAfterCommit() {
+        // given
+        memberRepository.save(new Member("member1", 78));
+        memberRepository.save(new Member("member2", 78));
+        pageCounter.evictAll();
+        assertThat(memberRepository.findPageByAge(78, PageRequest.of(0, 1), CountMode.CACHED).getTotalElements())
+                .isEqualTo(2);
+
+        // when 회원이 추가된 트랜잭션이 커밋되면 캐시된 count 를 버린다
+        memberRepository.save(new Member("member3", 78));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        // then
+        try {
+            assertThat(memberRepository.findPageByAge(78, PageRequest.of(0, 1), CountMode.CACHED).getTotalElements())
+                    .isEqualTo(3);
+        } finally {
+            memberRepository.deleteAllInBatch(memberRepository.findPageByAge(78, PageRequest.of(0, 10), CountMode.EXACT)
+                    .getContent());
+        }
+    }
+
+    @Test
+    void scroll() {
+        // given
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 10));
+        memberRepository.save(new Member("member3", 10));
+        memberRepository.save(new Member("member4", 10));
+        memberRepository.save(new Member("member5", 10));
+
+        // when
+        Window<Member> first = memberRepository.findAllByOrderByIdAsc(ScrollPosition.keyset(), Limit.of(3));
+        Window<Member> next = memberRepository.findAllByOrderByIdAsc(first.positionAt(first.size() - 1), Limit.of(3));
+
+        // then
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(next.getContent()).extracting("username").containsExactly("member4", "member5");
+        assertThat(next.hasNext()).isFalse();
+    }
+
+    @Test
+    void scrollByUsernameAndId() {
+        // given 같은 username 이 창 경계에 걸치도록 저장
+        Member b1 = memberRepository.save(new Member("b", 10));
+        Member a1 = memberRepository.save(new Member("a", 10));
+        Member b2 = memberRepository.save(new Member("b", 10));
+        Member a2 = memberRepository.save(new Member("a", 10));
+        Member c1 = memberRepository.save(new Member("c", 10));
+
+        // when
+        Window<Member> first = memberRepository.findAllByOrderByUsernameAscIdAsc(ScrollPosition.keyset(), Limit.of(3));
+        Window<Member> next = memberRepository.findAllByOrderByUsernameAscIdAsc(first.positionAt(first.size() - 1), Limit.of(3));
+
+        // then (username, id) 순서로 이어지고 같은 username 은 id 로 갈린다
+        assertThat(first.getContent()).containsExactly(a1, a2, b1);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(next.getContent()).containsExactly(b2, c1);
+        assertThat(next.hasNext()).isFalse();
+    }
+
     @Test
     void bulkUpdate() {
         memberRepository.save(new Member("member1", 10));
@@ -262,6 +454,26 @@ class MemberRepositoryTest {
         assertThat(resultCount).isEqualTo(3);
     }
 
+    @Test
+    void bulkInsert() {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        // when
+        long count = memberRepository.bulkInsert(IntStream.range(0, 2500)
+                .mapToObj(i -> new Member("member" + i, i % 50, i % 2 == 0 ? teamA : teamB)));
+
+        // then
+        assertThat(count).isEqualTo(2500);
+        assertThat(memberRepository.count()).isEqualTo(2500);
+        assertThat(teamRepository.count()).isEqualTo(2);
+        assertThat(memberRepository.findMemberDto()).hasSize(2500);
+        // 외래 키만 저장하고 팀 쪽 컬렉션에는 회원을 쌓아 두지 않는다
+        assertThat(teamA.getMembers()).isEmpty();
+        assertThat(teamB.getMembers()).isEmpty();
+    }
+
     @Test
     void findMemberLazy() {
         // given
@@ -349,6 +561,35 @@ class MemberRepositoryTest {
         assertThat(result).hasSize(1);
     }
 
+    @Test
+    void specificationPlanCache() {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 0, teamA));
+        em.persist(new Member("m2", 0, teamA));
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        MemberCondition first = MemberSpec.username("m1").and(MemberSpec.teamName("teamA"));
+        memberRepository.findAll(first);
+        long hits = statistics.getQueryPlanCacheHitCount();
+        double shapeHits = meterRegistry.get("member.spec.plan.cache")
+                .tags("shape", first.jpql(), "result", "hit")
+                .functionCounter().count();
+
+        // when 값만 다른 같은 구조의 Specification 을 따로 만든다
+        List<Member> result = memberRepository.findAll(MemberSpec.username("m2").and(MemberSpec.teamName("teamA")));
+
+        // then
+        assertThat(result).extracting("username").containsExactly("m2");
+        assertThat(meterRegistry.get("member.spec.plan.cache")
+                .tags("shape", first.jpql(), "result", "hit")
+                .functionCounter().count()).isEqualTo(shapeHits + 1);
+        assertThat(statistics.getQueryPlanCacheHitCount()).isGreaterThan(hits);
+    }
+
     @Test
     void queryByExample() {
         // given
@@ -403,6 +644,33 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    void projectionViews() {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        Member m1 = new Member("m1", 10, teamA);
+        Member m2 = new Member("m2", 20);
+        em.persist(m1);
+        em.persist(m2);
+
+        em.flush();
+        em.clear();
+
+        // when
+        List<NestedClosedProjections> nested = memberRepository.findNestedProjectionByUsername("m1");
+        List<UsernameOnly> usernameOnly = memberRepository.findUsernameOnlyByUsername("m1");
+        Page<MemberProjection> page = memberRepository.findProjectionPage(
+                PageRequest.of(0, 10, Sort.by("username")), CountMode.SKIP_WHEN_SHORT);
+
+        // then
+        assertThat(nested.getFirst().getTeam().getName()).isEqualTo("teamA");
+        assertThat(usernameOnly.getFirst().getUsername()).isEqualTo("m110");
+        assertThat(page.getContent()).extracting("username").containsExactly("m1", "m2");
+        assertThat(page.getContent()).extracting("teamName").containsExactly("teamA", null);
+    }
+
     @Test
     void nativeQuery() {
         // given
@@ -427,4 +695,4 @@ class MemberRepositoryTest {
             System.out.println("memberProjection.getTeamName() = " + memberProjection.getTeamName());
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
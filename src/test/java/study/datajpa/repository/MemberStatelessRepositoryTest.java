@@ -0,0 +1,98 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.event.MemberBulkUpdatedEvent;
+import study.datajpa.event.MemberChangedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@RecordApplicationEvents
+class MemberStatelessRepositoryTest {
+
+    @Autowired
+    MemberStatelessRepository memberStatelessRepository;
+
+    @Autowired
+    ApplicationEvents events;
+
+    @Test
+    void insertAndFind() {
+        // given
+        long inserted = memberStatelessRepository.insertAll(IntStream.range(0, 10)
+                .mapToObj(i -> new Member("member" + i, i % 3))
+                .toList());
+
+        // when
+        List<Member> age0 = memberStatelessRepository.findByAge(0);
+        Page<Member> page = memberStatelessRepository.findAll(PageRequest.of(1, 4, Sort.by("username")));
+
+        // then
+        assertThat(inserted).isEqualTo(10);
+        assertThat(age0).extracting(Member::getUsername).containsExactlyInAnyOrder("member0", "member3", "member6", "member9");
+        assertThat(age0).allSatisfy(member -> assertThat(member.getCreatedDate()).isNotNull());
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        assertThat(page.getContent()).extracting(Member::getUsername).containsExactly("member4", "member5", "member6", "member7");
+    }
+
+    @Test
+    void scanAll() {
+        memberStatelessRepository.insertAll(IntStream.range(0, 10)
+                .mapToObj(i -> new Member("member" + i, i))
+                .toList());
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        long scanned = memberStatelessRepository.scanAll(3, chunk -> chunkSizes.add(chunk.size()));
+
+        assertThat(scanned).isEqualTo(10);
+        assertThat(chunkSizes).containsExactly(3, 3, 3, 1);
+    }
+
+    @Test
+    void update() {
+        memberStatelessRepository.insertAll(List.of(new Member("member1", 10)));
+        Member member = memberStatelessRepository.findByAge(10).getFirst();
+
+        member.setAge(11);
+        memberStatelessRepository.update(member);
+
+        Member updated = memberStatelessRepository.findByAge(11).getFirst();
+        assertThat(updated.getId()).isEqualTo(member.getId());
+        assertThat(updated.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void updateAllPublishesChangePerMember() {
+        // given
+        memberStatelessRepository.insertAll(List.of(new Member("member1", 20), new Member("member2", 20)));
+        List<Member> members = memberStatelessRepository.findByAge(20);
+        members.forEach(member -> member.setAge(21));
+
+        // when
+        memberStatelessRepository.updateAll(members);
+
+        // then 전체 재집계 대신 회원별 변경 이벤트
+        assertThat(memberStatelessRepository.findByAge(21)).hasSize(2);
+        assertThat(events.stream(MemberChangedEvent.class).filter(event -> event.before() != null))
+                .hasSize(2)
+                .allSatisfy(event -> {
+                    assertThat(event.before().age()).isEqualTo(20);
+                    assertThat(event.after().age()).isEqualTo(21);
+                });
+        assertThat(events.stream(MemberBulkUpdatedEvent.class)).isEmpty();
+    }
+}
@@ -0,0 +1,147 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// 커밋 후에 집계에 반영되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+// 벌크 연산 뒤 재집계는 @Async 실행기에서 돌므로 결과를 기다려서 검증한다
+@SpringBootTest
+class MemberStatsRepositoryTest {
+
+    @Autowired
+    MemberStatsRepository memberStatsRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        // 이전 테스트 정리(deleteAllInBatch) 뒤의 재집계가 끝나 테이블과 맞아야 증감을 비교할 수 있다
+        await().untilAsserted(() -> {
+            assertThat(memberStatsRepository.countMembers()).isEqualTo(memberRepository.count());
+            assertThat(memberStatsRepository.countTeams()).isEqualTo(teamRepository.count());
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void incremental() {
+        long members = memberStatsRepository.countMembers();
+        long teams = memberStatsRepository.countTeams();
+        long age30 = memberStatsRepository.countByAge(30);
+
+        // 추가
+        Team[] saved = tx.execute(status -> {
+            Team teamA = teamRepository.save(new Team("teamA"));
+            Team teamB = teamRepository.save(new Team("teamB"));
+            memberRepository.save(new Member("m1", 10, teamA));
+            memberRepository.save(new Member("m2", 20, teamA));
+            memberRepository.save(new Member("m3", 30, teamB));
+            return new Team[]{teamA, teamB};
+        });
+        Long teamA = saved[0].getId();
+        Long teamB = saved[1].getId();
+
+        assertThat(memberStatsRepository.countMembers()).isEqualTo(members + 3);
+        assertThat(memberStatsRepository.countTeams()).isEqualTo(teams + 2);
+        assertThat(memberStatsRepository.countByAge(30)).isEqualTo(age30 + 1);
+        assertThat(memberStatsRepository.findTeamStats(teamA)).isEqualTo(new TeamStats(2, 30));
+        assertThat(memberStatsRepository.findTeamStats(teamA).averageAge()).isEqualTo(15.0);
+
+        // 팀 변경
+        tx.executeWithoutResult(status -> memberRepository.findByUsername("m3").getFirst()
+                .changeTeam(teamRepository.findById(teamA).get()));
+
+        assertThat(memberStatsRepository.findTeamStats(teamA)).isEqualTo(new TeamStats(3, 60));
+        assertThat(memberStatsRepository.findTeamStats(teamB)).isEqualTo(TeamStats.EMPTY);
+
+        // 삭제
+        tx.executeWithoutResult(status -> memberRepository.delete(memberRepository.findByUsername("m1").getFirst()));
+
+        assertThat(memberStatsRepository.countMembers()).isEqualTo(members + 2);
+        assertThat(memberStatsRepository.findTeamStats(teamA)).isEqualTo(new TeamStats(2, 50));
+
+        // 롤백된 변경은 반영하지 않는다
+        tx.executeWithoutResult(status -> {
+            memberRepository.save(new Member("m4", 40));
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberStatsRepository.countMembers()).isEqualTo(members + 2);
+    }
+
+    @Test
+    void reconcileAfterBulkUpdate() {
+        Long teamA = tx.execute(status -> {
+            Team team = teamRepository.save(new Team("teamA"));
+            memberRepository.save(new Member("m1", 10, team));
+            memberRepository.save(new Member("m2", 20, team));
+            return team.getId();
+        });
+
+        // 엔티티 콜백 없이 나이가 바뀌고, 커밋 후 비동기로 다시 집계한다
+        tx.executeWithoutResult(status -> memberRepository.bulkAgePlus(0));
+
+        await().untilAsserted(() -> {
+            assertThat(memberStatsRepository.findTeamStats(teamA)).isEqualTo(new TeamStats(2, 32));
+            assertThat(memberStatsRepository.countByAge(11)).isGreaterThanOrEqualTo(1);
+        });
+    }
+
+    @Test
+    void reconcileWhileWriting() {
+        // when 재집계를 반복하는 동안 회원과 팀을 추가/삭제
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CompletableFuture<Void> reconciles = CompletableFuture.runAsync(() -> {
+            while (writing.get()) {
+                memberStatsRepository.reconcile();
+            }
+        });
+        try {
+            for (int i = 0; i < 50; i++) {
+                int age = i;
+                tx.executeWithoutResult(status -> {
+                    Team team = teamRepository.save(new Team("team" + age));
+                    memberRepository.save(new Member("writer" + age, age, team));
+                });
+                if (i % 5 == 0) {
+                    tx.executeWithoutResult(status -> memberRepository.delete(memberRepository.findByUsername("writer" + age).getFirst()));
+                }
+            }
+        } finally {
+            writing.set(false);
+            reconciles.join();
+        }
+
+        // then 재집계 중에 커밋된 변경도 빠지거나 두 번 세지 않는다
+        assertThat(memberStatsRepository.countMembers()).isEqualTo(memberRepository.count());
+        assertThat(memberStatsRepository.countTeams()).isEqualTo(teamRepository.count());
+    }
+}
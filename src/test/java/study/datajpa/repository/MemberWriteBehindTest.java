@@ -0,0 +1,146 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import study.datajpa.entity.Member;
+import study.datajpa.event.MemberBulkUpdatedEvent;
+import study.datajpa.event.MemberChangedEvent;
+import study.datajpa.event.MemberState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 별도 트랜잭션으로 내보내므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+// 주기적인 flush 가 테스트 중간에 끼어들지 않도록 끈다
+// 설정이 달라 컨텍스트를 따로 띄우므로 DB 도 따로 쓴다, 같은 파일 DB 면 ddl-auto: create 가 다른 컨텍스트의 테이블과 시퀀스를 다시 만든다
+@SpringBootTest(properties = {
+        "datajpa.write-behind.periodic-flush=false",
+        "spring.datasource.url=jdbc:h2:mem:write-behind;MODE=MySQL;DB_CLOSE_DELAY=-1"
+})
+@RecordApplicationEvents
+class MemberWriteBehindTest {
+
+    @Autowired
+    MemberWriteBehind memberWriteBehind;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    ApplicationEvents events;
+
+    @AfterEach
+    void cleanUp() {
+        memberWriteBehind.flush();
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void coalesce() {
+        // given
+        Member member1 = memberRepository.save(new Member("member1", 10));
+        Member member2 = memberRepository.save(new Member("member2", 20));
+        DistributionSummary flushRows = meterRegistry.get("member.write-behind.flush.rows").summary();
+        long flushes = flushRows.count();
+        double rows = flushRows.totalAmount();
+
+        // when 같은 회원 수정은 하나로 합쳐진다
+        for (int i = 0; i < 100; i++) {
+            memberWriteBehind.addAge(member1.getId(), 1);
+        }
+        memberWriteBehind.setUsername(member1.getId(), "renamed");
+        memberWriteBehind.setAge(member2.getId(), 30);
+        memberWriteBehind.addAge(member2.getId(), 2);
+        memberWriteBehind.flush();
+
+        // then
+        Member result1 = memberRepository.findById(member1.getId()).get();
+        Member result2 = memberRepository.findById(member2.getId()).get();
+        assertThat(result1.getAge()).isEqualTo(110);
+        assertThat(result1.getUsername()).isEqualTo("renamed");
+        assertThat(result1.getVersion()).isEqualTo(member1.getVersion() + 1);
+        assertThat(result2.getAge()).isEqualTo(32);
+        assertThat(memberWriteBehind.pendingCount()).isZero();
+        // flush 한 번에 두 회원
+        assertThat(flushRows.count()).isEqualTo(flushes + 1);
+        assertThat(flushRows.totalAmount()).isEqualTo(rows + 2);
+
+        // 전체 재집계 대신 회원별 변경 이벤트
+        assertThat(events.stream(MemberChangedEvent.class)
+                .filter(event -> event.memberId().equals(member1.getId()) && event.before() != null))
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.before()).isEqualTo(new MemberState(null, "member1", 10));
+                    assertThat(event.after()).isEqualTo(new MemberState(null, "renamed", 110));
+                });
+        assertThat(events.stream(MemberBulkUpdatedEvent.class)).isEmpty();
+    }
+
+    @Test
+    void conflictWithExpectedVersion() {
+        // given
+        Member member = memberRepository.save(new Member("member1", 10));
+        double conflicts = meterRegistry.get("member.write-behind.conflicts").counter().count();
+        memberWriteBehind.setUsername(member.getId(), "renamed", member.getVersion());
+        memberWriteBehind.addAge(member.getId(), 1);
+
+        // 같은 회원에 다른 version 을 기대하는 수정은 바로 거부한다
+        assertThatThrownBy(() -> memberWriteBehind.setAge(member.getId(), 50, member.getVersion() + 1))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        // when flush 전에 JPA 로 회원이 바뀌면
+        memberRepository.updateWithRetry(member.getId(), m -> m.setAge(20));
+        memberWriteBehind.flush();
+
+        // then 기대한 version 과 달라 대기 중인 수정을 버린다
+        Member result = memberRepository.findById(member.getId()).get();
+        assertThat(result.getUsername()).isEqualTo("member1");
+        assertThat(result.getAge()).isEqualTo(20);
+        assertThat(meterRegistry.get("member.write-behind.conflicts").counter().count()).isEqualTo(conflicts + 1);
+        assertThat(memberWriteBehind.pendingCount()).isZero();
+    }
+
+    @Test
+    void lastWriterWinsWithoutExpectedVersion() {
+        // given
+        Member member = memberRepository.save(new Member("member1", 10));
+        memberWriteBehind.setUsername(member.getId(), "renamed");
+
+        // when
+        memberRepository.updateWithRetry(member.getId(), m -> m.setAge(20));
+        memberWriteBehind.flush();
+
+        // then flush 시점의 값 위에 덮어쓴다
+        Member result = memberRepository.findById(member.getId()).get();
+        assertThat(result.getUsername()).isEqualTo("renamed");
+        assertThat(result.getAge()).isEqualTo(20);
+        assertThat(result.getVersion()).isEqualTo(member.getVersion() + 2);
+    }
+
+    @Test
+    @DirtiesContext
+    void shutdownFlushesAndRejectsUpdates() {
+        // given
+        Member member = memberRepository.save(new Member("member1", 10));
+        memberWriteBehind.addAge(member.getId(), 5);
+
+        // when
+        memberWriteBehind.shutdown();
+
+        // then
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(15);
+        assertThatThrownBy(() -> memberWriteBehind.addAge(member.getId(), 1))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,87 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 시도마다 새 트랜잭션을 커밋하므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+@SpringBootTest
+class OptimisticRetryTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    OptimisticRetry optimisticRetry;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void concurrentUpdates() {
+        // given
+        Member member = memberRepository.save(new Member("hot", 0));
+
+        // when 같은 행을 동시에 40번 수정
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<CompletableFuture<Void>> updates = IntStream.range(0, 40)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> optimisticRetry.execute("test.increment", 100, () -> {
+                        Member hot = memberRepository.findById(member.getId()).get();
+                        hot.setAge(hot.getAge() + 1);
+                        return hot;
+                    }), executor))
+                    .toList();
+            CompletableFuture.allOf(updates.toArray(CompletableFuture[]::new)).join();
+        }
+
+        // then 잃어버린 수정 없이 모두 반영
+        Member result = memberRepository.findById(member.getId()).get();
+        assertThat(result.getAge()).isEqualTo(40);
+        assertThat(result.getVersion()).isEqualTo(40L);
+        assertThat(meterRegistry.find("db.optimistic.attempts").tag("operation", "test.increment").summary().count())
+                .isEqualTo(40);
+    }
+
+    @Test
+    void updateWithRetry() {
+        Member member = memberRepository.save(new Member("member1", 10));
+
+        Member updated = memberRepository.updateWithRetry(member.getId(), m -> m.setAge(11));
+
+        assertThat(updated.getAge()).isEqualTo(11);
+        assertThat(updated.getVersion()).isEqualTo(member.getVersion() + 1);
+    }
+
+    @Test
+    void exhausted() {
+        Member member = memberRepository.save(new Member("member1", 10));
+
+        // 매번 다른 트랜잭션이 먼저 수정해서 충돌한다
+        assertThatThrownBy(() -> optimisticRetry.execute("test.exhausted", 2, () -> {
+            Member stale = memberRepository.findById(member.getId()).get();
+            memberRepository.updateWithRetry(member.getId(), m -> m.setAge(m.getAge() + 1));
+            stale.setAge(0);
+            return stale;
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(meterRegistry.counter("db.optimistic.exhausted", "operation", "test.exhausted").count()).isEqualTo(1);
+    }
+}
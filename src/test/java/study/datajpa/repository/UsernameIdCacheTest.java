@@ -0,0 +1,99 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 커밋된 데이터만 캐시하므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+@SpringBootTest
+class UsernameIdCacheTest {
+
+    @Autowired
+    UsernameIdCache usernameIdCache;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void writeThroughInvalidation() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Member member1 = memberRepository.save(new Member("login", 10));
+
+        assertThat(usernameIdCache.findIds("login")).isEqualTo(IdSet.of(member1.getId()));
+
+        // persist
+        Member member2 = memberRepository.save(new Member("login", 20));
+        assertThat(usernameIdCache.findIds("login")).isEqualTo(IdSet.of(member1.getId(), member2.getId()));
+
+        // username 변경
+        tx.executeWithoutResult(status -> memberRepository.findById(member1.getId()).get().setUsername("renamed"));
+        assertThat(usernameIdCache.findIds("login")).isEqualTo(IdSet.of(member2.getId()));
+        assertThat(usernameIdCache.findIds("renamed")).isEqualTo(IdSet.of(member1.getId()));
+
+        // remove
+        memberRepository.deleteById(member2.getId());
+        assertThat(usernameIdCache.findIds("login").isEmpty()).isTrue();
+
+        // 캐시를 거친 조회
+        List<Member> cached = tx.execute(status -> memberRepository.findCachedByUsername("renamed"));
+        assertThat(cached)
+                .extracting("id")
+                .containsExactly(member1.getId());
+    }
+
+    @Test
+    void usernameFindersUseCache() {
+        // given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Member member = memberRepository.save(new Member("finder", 10));
+        usernameIdCache.findIds("finder");
+        double hits = cacheHits();
+
+        // when
+        List<Member> list = tx.execute(status -> memberRepository.findListByUsername("finder"));
+        Member one = tx.execute(status -> memberRepository.findMemberByUsername("finder"));
+        Optional<Member> optional = tx.execute(status -> memberRepository.findOptionalByUsername("finder"));
+
+        // then 세 조회 모두 캐시에서 id 를 찾는다
+        assertThat(list).extracting("id").containsExactly(member.getId());
+        assertThat(one.getId()).isEqualTo(member.getId());
+        assertThat(optional).map(Member::getId).contains(member.getId());
+        assertThat(cacheHits()).isEqualTo(hits + 3);
+
+        // 트랜잭션 안에서 아직 flush 하지 않은 회원도 보이고, 단건 조회는 파생 쿼리처럼 여러 건이면 예외
+        assertThatThrownBy(() -> tx.executeWithoutResult(status -> {
+            memberRepository.save(new Member("finder", 20));
+            memberRepository.findOptionalByUsername("finder");
+        })).isInstanceOf(IncorrectResultSizeDataAccessException.class);
+        assertThat(memberRepository.findOptionalByUsername("missing")).isEmpty();
+        assertThat(memberRepository.findMemberByUsername("missing")).isNull();
+    }
+
+    private double cacheHits() {
+        return meterRegistry.get("cache.gets").tags("cache", "member.username.ids", "result", "hit")
+                .functionCounter().count();
+    }
+}